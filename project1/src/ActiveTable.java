@@ -0,0 +1,34 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the code table (tree or codec) currently in use. Readers take a snapshot with
+ * {@link #get()} and keep using it for a whole message; switching tables with
+ * {@link #set} is atomic, so a concurrent reader sees either the old or the new table,
+ * never a mix. The held objects must be immutable, like {@link HuffmanTree} and
+ * {@link HuffmanCodec}.
+ */
+class ActiveTable<T> {
+    private final AtomicReference<T> current;
+
+    ActiveTable(T initial) {
+        current = new AtomicReference<>(initial);
+    }
+
+    public T get() {
+        return current.get();
+    }
+
+    /**
+     * Makes the table active and returns the one it replaced.
+     */
+    public T set(T table) {
+        return current.getAndSet(table);
+    }
+
+    /**
+     * Replaces the table only if {@code expected} is still the active one.
+     */
+    public boolean replace(T expected, T table) {
+        return current.compareAndSet(expected, table);
+    }
+}
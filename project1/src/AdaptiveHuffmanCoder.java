@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One-pass adaptive Huffman coding (the FGK algorithm). Encoder and decoder start from the
+ * same empty tree and update it identically after every symbol, so no frequency pass and
+ * no code table header are needed.
+ * <p>
+ * The tree keeps the sibling property: node numbers, used directly as array indexes, are
+ * ordered by weight, with the root at the highest index. A symbol seen for the first time
+ * is sent as the code of the NYT ("not yet transmitted") leaf followed by the symbol in
+ * {@code symbolBits} raw bits.
+ */
+class AdaptiveHuffmanCoder {
+    private static final int NONE = -1;
+
+    private final int alphabetSize;
+    private final int symbolBits;
+    private final long[] weight;
+    private final int[] parent;
+    private final int[] left;
+    private final int[] right;
+    private final int[] symbol;
+    private final int[] leafOf;
+    private final int[] path;
+    private final int root;
+    private int nyt;
+
+    AdaptiveHuffmanCoder(int alphabetSize) {
+        this.alphabetSize = alphabetSize;
+        this.symbolBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, alphabetSize - 1));
+        int maxNodes = 2 * alphabetSize + 1;
+        weight = new long[maxNodes];
+        parent = new int[maxNodes];
+        left = new int[maxNodes];
+        right = new int[maxNodes];
+        symbol = new int[maxNodes];
+        path = new int[maxNodes];
+        leafOf = new int[alphabetSize];
+        Arrays.fill(leafOf, NONE);
+        root = maxNodes - 1;
+        nyt = root;
+        parent[root] = NONE;
+        left[root] = NONE;
+        right[root] = NONE;
+        symbol[root] = NONE;
+    }
+
+    public void encode(int value, BitWriter out) throws IOException {
+        if (value < 0 || value >= alphabetSize) {
+            throw new IllegalArgumentException("Symbol out of range: " + value);
+        }
+        int node = leafOf[value];
+        writePath(node == NONE ? nyt : node, out);
+        if (node == NONE) {
+            out.writeBits(value, symbolBits);
+        }
+        update(value);
+    }
+
+    public int decode(BitReader in) throws IOException {
+        int node = root;
+        while (left[node] != NONE) {
+            node = in.readBit() == 0 ? left[node] : right[node];
+        }
+        int value;
+        if (node == nyt) {
+            value = (int) in.readBits(symbolBits);
+            if (value >= alphabetSize || leafOf[value] != NONE) {
+                throw new IOException("Corrupt adaptive Huffman stream");
+            }
+        } else {
+            value = symbol[node];
+        }
+        update(value);
+        return value;
+    }
+
+    private void writePath(int node, BitWriter out) throws IOException {
+        int depth = 0;
+        while (node != root) {
+            int up = parent[node];
+            path[depth++] = right[up] == node ? 1 : 0;
+            node = up;
+        }
+        while (depth > 0) {
+            out.writeBit(path[--depth]);
+        }
+    }
+
+    private void update(int value) {
+        int node = leafOf[value];
+        if (node == NONE) {
+            // Split the NYT leaf into a new NYT leaf (left) and a leaf for the symbol (right)
+            int oldNyt = nyt;
+            int leaf = oldNyt - 1;
+            nyt = oldNyt - 2;
+            initLeaf(leaf, oldNyt, value);
+            initLeaf(nyt, oldNyt, NONE);
+            left[oldNyt] = nyt;
+            right[oldNyt] = leaf;
+            leafOf[value] = leaf;
+            node = leaf;
+        }
+        while (node != NONE) {
+            int leader = node;
+            while (leader + 1 < root && weight[leader + 1] == weight[node]) {
+                leader++;
+            }
+            if (leader != node && leader != parent[node]) {
+                swap(node, leader);
+                node = leader;
+            }
+            weight[node]++;
+            node = parent[node];
+        }
+    }
+
+    private void initLeaf(int node, int parentNode, int value) {
+        weight[node] = 0;
+        parent[node] = parentNode;
+        left[node] = NONE;
+        right[node] = NONE;
+        symbol[node] = value;
+    }
+
+    // Exchanges the subtrees at two node numbers; each position keeps its parent link
+    private void swap(int a, int b) {
+        long w = weight[a];
+        weight[a] = weight[b];
+        weight[b] = w;
+        int t = left[a];
+        left[a] = left[b];
+        left[b] = t;
+        t = right[a];
+        right[a] = right[b];
+        right[b] = t;
+        t = symbol[a];
+        symbol[a] = symbol[b];
+        symbol[b] = t;
+        relink(a);
+        relink(b);
+    }
+
+    private void relink(int node) {
+        if (left[node] != NONE) {
+            parent[left[node]] = node;
+            parent[right[node]] = node;
+        } else if (symbol[node] != NONE) {
+            leafOf[symbol[node]] = node;
+        } else {
+            nyt = node;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses the single-pass format written by {@link AdaptiveHuffmanOutputStream}.
+ */
+class AdaptiveHuffmanInputStream extends InputStream {
+    private final BitReader bits;
+    private final AdaptiveHuffmanCoder coder = new AdaptiveHuffmanCoder(AdaptiveHuffmanOutputStream.ALPHABET_SIZE);
+    private boolean finished;
+
+    AdaptiveHuffmanInputStream(InputStream in) {
+        this.bits = new BitReader(in);
+    }
+
+    // Returns the next byte value, FLUSH, or -1 at the end of the stream
+    private int next() throws IOException {
+        if (finished) {
+            return -1;
+        }
+        int value = coder.decode(bits);
+        if (value == AdaptiveHuffmanOutputStream.END) {
+            finished = true;
+            return -1;
+        }
+        if (value == AdaptiveHuffmanOutputStream.FLUSH) {
+            bits.alignToByte();
+        }
+        return value;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value;
+        do {
+            value = next();
+        } while (value == AdaptiveHuffmanOutputStream.FLUSH);
+        return value;
+    }
+
+    /**
+     * Returns early at a flush point once some bytes have been read, so a reader on a live
+     * stream gets everything the writer has flushed without waiting for more.
+     */
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < length) {
+            int value = next();
+            if (value < 0) {
+                break;
+            }
+            if (value == AdaptiveHuffmanOutputStream.FLUSH) {
+                if (n > 0) {
+                    break;
+                }
+                continue;
+            }
+            data[offset + n++] = (byte) value;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        bits.close();
+    }
+}
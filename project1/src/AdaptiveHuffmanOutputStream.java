@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses a byte stream in a single pass with {@link AdaptiveHuffmanCoder}. Nothing has
+ * to be known about the data in advance and no header is written, which suits live
+ * streams.
+ * <p>
+ * Besides the 256 byte values the alphabet has two control symbols: {@link #FLUSH}, written
+ * by {@link #flush()} and followed by padding to a byte boundary so the reader can decode
+ * everything sent so far, and {@link #END}, written by {@link #close()}.
+ */
+class AdaptiveHuffmanOutputStream extends OutputStream {
+    static final int FLUSH = 256;
+    static final int END = 257;
+    static final int ALPHABET_SIZE = 258;
+
+    private final OutputStream out;
+    private final BitWriter bits;
+    private final AdaptiveHuffmanCoder coder = new AdaptiveHuffmanCoder(ALPHABET_SIZE);
+    private boolean closed;
+
+    AdaptiveHuffmanOutputStream(OutputStream out) {
+        this.out = out;
+        this.bits = new BitWriter(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        coder.encode(b & 0xFF, bits);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        coder.encode(FLUSH, bits);
+        bits.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            coder.encode(END, bits);
+            bits.flush();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads bits MSB-first from an {@link InputStream}, the counterpart of {@link BitWriter}.
+ */
+class BitReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bitBuffer;
+    private int bitCount;
+    private int paddingBits;
+    private long bitsRead;
+
+    BitReader(InputStream in) {
+        this.in = in;
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    public int readBit() throws IOException {
+        return (int) readBits(1);
+    }
+
+    private void fill(int count) throws IOException {
+        while (bitCount < count) {
+            int b = readByte();
+            if (b < 0) {
+                // Past the end the stream reads as zero bits so lookups can peek freely
+                b = 0;
+                paddingBits += 8;
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
+        }
+    }
+
+    /**
+     * Returns the next {@code count} bits (at most 32) without consuming them.
+     * Bits beyond the end of the stream read as zero.
+     */
+    public int peekBits(int count) throws IOException {
+        fill(count);
+        return (int) ((bitBuffer >>> (bitCount - count)) & ((1L << count) - 1));
+    }
+
+    public void skipBits(int count) throws IOException {
+        fill(count);
+        if (count > bitCount - paddingBits) {
+            throw new EOFException("Unexpected end of bit stream");
+        }
+        bitCount -= count;
+        bitsRead += count;
+    }
+
+    /**
+     * Reads {@code count} bits (at most 32) and returns them right-aligned.
+     */
+    public long readBits(int count) throws IOException {
+        long bits = peekBits(count) & 0xFFFFFFFFL;
+        skipBits(count);
+        return bits;
+    }
+
+    /**
+     * Reads {@code length} whole bytes. The reader must be at a byte boundary.
+     */
+    public void readBytes(byte[] data, int offset, int length) throws IOException {
+        if (bitCount % 8 != 0) {
+            throw new IllegalStateException("Not at a byte boundary");
+        }
+        // Bytes already pulled into the bit buffer come first
+        for (; length > 0 && bitCount > 0; length--) {
+            data[offset++] = (byte) readBits(8);
+        }
+        while (length > 0) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Unexpected end of bit stream");
+                }
+            }
+            int n = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, data, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+            bitsRead += 8L * n;
+        }
+    }
+
+    public long getBitsRead() {
+        return bitsRead;
+    }
+
+    public boolean hasMoreBits() throws IOException {
+        fill(1);
+        return bitCount > paddingBits;
+    }
+
+    /**
+     * Discards the remaining bits of the current byte.
+     */
+    public void alignToByte() {
+        bitsRead += bitCount % 8;
+        bitCount -= bitCount % 8;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
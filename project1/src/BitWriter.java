@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs variable-length bit codes MSB-first into bytes and writes them to an
+ * {@link OutputStream}. The last byte is padded with zero bits on {@link #flush()}.
+ */
+class BitWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long bitBuffer;
+    private int bitCount;
+    private long bitsWritten;
+
+    BitWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void writeBit(int bit) throws IOException {
+        writeBits(bit & 1, 1);
+    }
+
+    /**
+     * Writes the low {@code count} bits of {@code bits}, most significant first.
+     */
+    public void writeBits(long bits, int count) throws IOException {
+        if (count > 32) {
+            writeBits(bits >>> 32, count - 32);
+            count = 32;
+        }
+        if (count <= 0) {
+            return;
+        }
+        bitBuffer = (bitBuffer << count) | (bits & ((1L << count) - 1));
+        bitCount += count;
+        bitsWritten += count;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            writeByte((int) (bitBuffer >>> bitCount));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Copies the bytes between the buffer's position and limit unchanged. The writer must be
+     * at a byte boundary.
+     */
+    public void writeBytes(ByteBuffer data) throws IOException {
+        if (bitCount != 0) {
+            throw new IllegalStateException("Not at a byte boundary");
+        }
+        for (int i = data.position(); i < data.limit(); ) {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            int n = Math.min(buffer.length - position, data.limit() - i);
+            data.get(i, buffer, position, n);
+            position += n;
+            i += n;
+        }
+        bitsWritten += 8L * data.remaining();
+    }
+
+    public long getBitsWritten() {
+        return bitsWritten;
+    }
+
+    /**
+     * Pads the current byte with zero bits and pushes everything to the underlying stream.
+     */
+    public void flush() throws IOException {
+        if (bitCount > 0) {
+            writeByte((int) (bitBuffer << (8 - bitCount)));
+            bitsWritten += 8 - bitCount;
+            bitCount = 0;
+        }
+        bitBuffer = 0;
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
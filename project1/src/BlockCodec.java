@@ -0,0 +1,189 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Block-parallel compression. The input is split into fixed-size blocks that are encoded
+ * concurrently against one shared, immutable code table. Every block starts on a byte
+ * boundary and is listed in an index, so blocks can also be decoded concurrently.
+ * <p>
+ * Layout: code-length header, block count, one index entry per block (byte offset into the
+ * data section, bit length, character count), then the block data.
+ */
+class BlockCodec {
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    // Offset, bit length and character count
+    private static final int INDEX_ENTRY_SIZE = 8 + 8 + 4;
+
+    private BlockCodec() {
+    }
+
+    static byte[] compress(CharSequence text) {
+        int[] codeLengths = CodeLengths.huffman(FrequencyCounter.of(text).toArray());
+        return compress(text, codeLengths, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    static byte[] compress(CharSequence text, int[] codeLengths, int blockSize, ExecutorService executor) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        CodeTable table = CodeTable.fromLengths(codeLengths);
+        List<Callable<EncodedBlock>> tasks = new ArrayList<>();
+        for (int from = 0; from < text.length(); from += blockSize) {
+            int start = from;
+            int end = Math.min(text.length(), from + blockSize);
+            tasks.add(() -> encodeBlock(text, start, end, table));
+        }
+        List<EncodedBlock> blocks = invokeAll(executor, tasks);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CanonicalCode.writeLengths(out, codeLengths);
+            out.writeInt(blocks.size());
+            long offset = 0;
+            for (EncodedBlock block : blocks) {
+                out.writeLong(offset);
+                out.writeLong(block.bitLength);
+                out.writeInt(block.charCount);
+                offset += block.data.length;
+            }
+            for (EncodedBlock block : blocks) {
+                out.write(block.data);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static EncodedBlock encodeBlock(CharSequence text, int from, int to, CodeTable table) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((to - from) / 2 + 16);
+        BitWriter out = new BitWriter(bytes);
+        table.encode(text, from, to, out);
+        long bitLength = out.getBitsWritten();
+        out.flush();
+        return new EncodedBlock(bytes.toByteArray(), bitLength, to - from);
+    }
+
+    static String decompress(byte[] compressed) {
+        return decompress(compressed, ForkJoinPool.commonPool());
+    }
+
+    static String decompress(byte[] compressed, ExecutorService executor) {
+        DecodeTable table;
+        long[] offsets;
+        long[] bitLengths;
+        int[] charCounts;
+        int dataStart;
+        long total = 0;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed))) {
+            try {
+                table = CodeTable.fromLengths(CanonicalCode.readLengths(in)).newDecodeTable();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid header: " + e.getMessage(), e);
+            }
+            int blockCount = in.readInt();
+            if (blockCount < 0 || blockCount > in.available() / INDEX_ENTRY_SIZE) {
+                throw new IOException("Invalid block count: " + blockCount);
+            }
+            offsets = new long[blockCount];
+            bitLengths = new long[blockCount];
+            charCounts = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                offsets[i] = in.readLong();
+                bitLengths[i] = in.readLong();
+                charCounts[i] = in.readInt();
+            }
+            dataStart = compressed.length - in.available();
+
+            // Blocks must follow each other inside the data section, and every character
+            // takes at least one bit
+            long dataLength = compressed.length - dataStart;
+            long end = 0;
+            for (int i = 0; i < blockCount; i++) {
+                if (offsets[i] < end || bitLengths[i] < 0 || bitLengths[i] > dataLength * 8
+                        || offsets[i] + (bitLengths[i] + 7) / 8 > dataLength
+                        || charCounts[i] < 0 || charCounts[i] > bitLengths[i]) {
+                    throw new IOException("Invalid index entry for block " + i);
+                }
+                end = offsets[i] + (bitLengths[i] + 7) / 8;
+                total += charCounts[i];
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too many characters: " + total);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        char[] decoded = new char[(int) total];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int position = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            int block = i;
+            int start = (int) (dataStart + offsets[i]);
+            long bitLength = bitLengths[i];
+            int target = position;
+            int count = charCounts[i];
+            tasks.add(() -> {
+                BitReader in = new BitReader(new ByteArrayInputStream(compressed, start, (int) ((bitLength + 7) / 8)));
+                for (int j = 0; j < count; j++) {
+                    decoded[target + j] = (char) table.decodeSymbol(in);
+                }
+                if (in.getBitsRead() != bitLength) {
+                    throw new IOException("Block " + block + " does not match its bit length");
+                }
+                return null;
+            });
+            position += count;
+        }
+        invokeAll(executor, tasks);
+        return new String(decoded);
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while coding blocks", e);
+        } catch (ExecutionException e) {
+            // ForkJoinPool hands checked exceptions back wrapped in RuntimeExceptions
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException((IOException) cause);
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private static class EncodedBlock {
+        final byte[] data;
+        final long bitLength;
+        final int charCount;
+
+        EncodedBlock(byte[] data, long bitLength, int charCount) {
+            this.data = data;
+            this.bitLength = bitLength;
+            this.charCount = charCount;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Canonical Huffman code helpers. A canonical code is fully determined by the code length
+ * of each symbol, so only the lengths need to be stored alongside compressed data.
+ * <p>
+ * Arrays of lengths are indexed by symbol; a length of zero means the symbol is unused.
+ */
+class CanonicalCode {
+    static final int MAX_CODE_LENGTH = 63;
+    static final int CHAR_SYMBOLS = 0x10000;
+
+    private CanonicalCode() {
+    }
+
+    /**
+     * Assigns canonical codes: shorter codes first, and symbols of equal length in
+     * ascending order get consecutive code values.
+     */
+    static long[] assignCodes(int[] lengths) {
+        int maxLength = 0;
+        for (int length : lengths) {
+            if (length < 0 || length > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException("Invalid code length: " + length);
+            }
+            maxLength = Math.max(maxLength, length);
+        }
+        int[] lengthCount = new int[maxLength + 1];
+        for (int length : lengths) {
+            if (length > 0) {
+                lengthCount[length]++;
+            }
+        }
+        long[] nextCode = new long[maxLength + 1];
+        long code = 0;
+        for (int bits = 1; bits <= maxLength; bits++) {
+            code = (code + lengthCount[bits - 1]) << 1;
+            nextCode[bits] = code;
+        }
+        nextCode[0] = 0;
+
+        long[] codes = new long[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = nextCode[length]++;
+                if (length < 64 && codes[symbol] >>> length != 0) {
+                    throw new IllegalArgumentException("Code lengths are over-subscribed");
+                }
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Writes the lengths as a compact header: the number of used symbols, then for each used
+     * symbol the gap from the previous one and its code length.
+     */
+    static void writeLengths(DataOutput out, int[] lengths) throws IOException {
+        int used = 0;
+        for (int length : lengths) {
+            if (length > 0) {
+                used++;
+            }
+        }
+        writeVarint(out, used);
+        int previous = -1;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                writeVarint(out, symbol - previous - 1);
+                out.writeByte(lengths[symbol]);
+                previous = symbol;
+            }
+        }
+    }
+
+    /**
+     * Reads a header written by {@link #writeLengths} for an alphabet of up to 0x10000
+     * symbols (chars).
+     */
+    static int[] readLengths(DataInput in) throws IOException {
+        return readLengths(in, CHAR_SYMBOLS);
+    }
+
+    /**
+     * Reads a header written by {@link #writeLengths}, rejecting symbols at or above
+     * {@code maxSymbols} before anything is allocated for them.
+     */
+    static int[] readLengths(DataInput in, int maxSymbols) throws IOException {
+        int used = readVarint(in);
+        if (used < 0 || used > maxSymbols) {
+            throw new IOException("Invalid header");
+        }
+        int[] symbols = new int[used];
+        int[] lengths = new int[used];
+        int previous = -1;
+        for (int i = 0; i < used; i++) {
+            int gap = readVarint(in);
+            long symbol = previous + 1L + gap;
+            if (gap < 0 || symbol >= maxSymbols) {
+                throw new IOException("Invalid header");
+            }
+            symbols[i] = (int) symbol;
+            lengths[i] = in.readUnsignedByte();
+            if (lengths[i] == 0 || lengths[i] > MAX_CODE_LENGTH) {
+                throw new IOException("Invalid code length in header: " + lengths[i]);
+            }
+            previous = symbols[i];
+        }
+        int[] result = new int[used == 0 ? 0 : previous + 1];
+        for (int i = 0; i < used; i++) {
+            result[symbols[i]] = lengths[i];
+        }
+        return result;
+    }
+
+    /**
+     * Checks a symbol count read from untrusted input before anything is allocated for it.
+     *
+     * @param maxCount the most symbols the rest of the input can hold
+     */
+    static int checkCount(int count, long maxCount) throws IOException {
+        if (count < 0 || count > maxCount) {
+            throw new IOException("Invalid symbol count: " + count);
+        }
+        return count;
+    }
+
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Number of bytes {@link #writeVarint} uses for the value.
+     */
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
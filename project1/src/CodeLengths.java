@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes Huffman code lengths directly from symbol frequencies. Arrays are indexed by
+ * symbol; a frequency of zero yields a length of zero (no code).
+ */
+class CodeLengths {
+
+    private CodeLengths() {
+    }
+
+    /**
+     * Huffman code lengths in linear time after a single sort. Leaves are taken in sorted
+     * order from one array and merged nodes, which are created in non-decreasing weight
+     * order, from a second one, so no priority queue or tree nodes are needed.
+     */
+    static int[] huffman(long[] frequencies) {
+        int[] lengths = new int[frequencies.length];
+        int n = 0;
+        for (long frequency : frequencies) {
+            if (frequency > 0) {
+                n++;
+            }
+        }
+        int[] symbols = new int[n];
+        n = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                symbols[n++] = symbol;
+            }
+        }
+        if (n == 1) {
+            lengths[symbols[0]] = 1;
+        }
+        if (n <= 1) {
+            return lengths;
+        }
+        sortByWeight(symbols, frequencies);
+
+        long[] mergedWeight = new long[n - 1];
+        int[] mergedParent = new int[n - 1];
+        int[] leafParent = new int[n];
+        int leaf = 0;
+        int merged = 0;
+        for (int next = 0; next < n - 1; next++) {
+            long weight = 0;
+            for (int pick = 0; pick < 2; pick++) {
+                // On equal weights prefer the leaf, which keeps the longest code short
+                if (leaf < n && (merged >= next || frequencies[symbols[leaf]] <= mergedWeight[merged])) {
+                    weight += frequencies[symbols[leaf]];
+                    leafParent[leaf++] = next;
+                } else {
+                    weight += mergedWeight[merged];
+                    mergedParent[merged++] = next;
+                }
+            }
+            mergedWeight[next] = weight;
+        }
+
+        // The last merged node is the root; parents always come later than their children
+        int[] depth = new int[n - 1];
+        for (int k = n - 3; k >= 0; k--) {
+            depth[k] = depth[mergedParent[k]] + 1;
+        }
+        for (int k = 0; k < n; k++) {
+            lengths[symbols[k]] = depth[leafParent[k]] + 1;
+        }
+        return lengths;
+    }
+
+    // Stable merge sort of the symbols by ascending frequency
+    private static void sortByWeight(int[] symbols, long[] frequencies) {
+        int[] buffer = new int[symbols.length];
+        for (int width = 1; width < symbols.length; width *= 2) {
+            for (int from = 0; from < symbols.length; from += 2 * width) {
+                int middle = Math.min(from + width, symbols.length);
+                int to = Math.min(from + 2 * width, symbols.length);
+                int i = from;
+                int j = middle;
+                for (int k = from; k < to; k++) {
+                    if (i < middle && (j >= to || frequencies[symbols[i]] <= frequencies[symbols[j]])) {
+                        buffer[k] = symbols[i++];
+                    } else {
+                        buffer[k] = symbols[j++];
+                    }
+                }
+            }
+            System.arraycopy(buffer, 0, symbols, 0, symbols.length);
+        }
+    }
+
+    /**
+     * Optimal code lengths that never exceed {@code maxLength}, using the package-merge
+     * algorithm. With a large enough limit the result matches ordinary Huffman coding.
+     */
+    static int[] limited(long[] frequencies, int maxLength) {
+        List<Item> leaves = new ArrayList<>();
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                leaves.add(new Item(frequencies[symbol], symbol, null, null));
+            }
+        }
+        int[] lengths = new int[frequencies.length];
+        if (leaves.isEmpty()) {
+            return lengths;
+        }
+        if (leaves.size() == 1) {
+            lengths[leaves.get(0).symbol] = 1;
+            return lengths;
+        }
+        if (maxLength < 1 || maxLength > CanonicalCode.MAX_CODE_LENGTH
+                || (maxLength < 31 && (1 << maxLength) < leaves.size())) {
+            throw new IllegalArgumentException(leaves.size() + " symbols do not fit in codes of at most "
+                    + maxLength + " bits");
+        }
+        leaves.sort((a, b) -> Long.compare(a.weight, b.weight));
+
+        // Each round pairs up the previous list into packages and merges them with the leaves
+        List<Item> current = leaves;
+        for (int level = 1; level < maxLength; level++) {
+            List<Item> merged = new ArrayList<>(leaves.size() + current.size() / 2);
+            int i = 0;
+            int j = 0;
+            while (i < leaves.size() || j + 1 < current.size()) {
+                boolean takeLeaf = j + 1 >= current.size() || (i < leaves.size()
+                        && leaves.get(i).weight <= current.get(j).weight + current.get(j + 1).weight);
+                if (takeLeaf) {
+                    merged.add(leaves.get(i++));
+                } else {
+                    merged.add(new Item(current.get(j).weight + current.get(j + 1).weight, -1,
+                            current.get(j), current.get(j + 1)));
+                    j += 2;
+                }
+            }
+            current = merged;
+        }
+
+        // Every appearance of a leaf among the cheapest 2n - 2 items adds one bit to its code
+        for (int k = 0; k < 2 * leaves.size() - 2; k++) {
+            countLeaves(current.get(k), lengths);
+        }
+        return lengths;
+    }
+
+    private static void countLeaves(Item item, int[] lengths) {
+        while (item.symbol < 0) {
+            countLeaves(item.first, lengths);
+            item = item.second;
+        }
+        lengths[item.symbol]++;
+    }
+
+    private static class Item {
+        final long weight;
+        final int symbol;
+        final Item first;
+        final Item second;
+
+        Item(long weight, int symbol, Item first, Item second) {
+            this.weight = weight;
+            this.symbol = symbol;
+            this.first = first;
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+
+/**
+ * Immutable encoding table: the code bits and code length of every symbol, in arrays
+ * indexed by the symbol itself. A length of zero marks a symbol that has no code.
+ */
+class CodeTable {
+    private final long[] codes;
+    private final int[] lengths;
+    private final int symbolCount;
+    private final int maxLength;
+
+    /**
+     * Takes ownership of the arrays; callers must not modify them afterwards.
+     */
+    CodeTable(long[] codes, int[] lengths) {
+        this.codes = codes;
+        this.lengths = lengths;
+        int count = 0;
+        int longest = 0;
+        for (int length : lengths) {
+            if (length > 0) {
+                count++;
+                longest = Math.max(longest, length);
+            }
+        }
+        this.symbolCount = count;
+        this.maxLength = longest;
+    }
+
+    static CodeTable fromLengths(int[] lengths) {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.CODE_TABLE);
+        int[] copy = lengths.clone();
+        CodeTable table = new CodeTable(CanonicalCode.assignCodes(copy), copy);
+        timer.stop(0, 0, table.getSymbolCount());
+        return table;
+    }
+
+    public boolean contains(int symbol) {
+        return symbol >= 0 && symbol < lengths.length && lengths[symbol] > 0;
+    }
+
+    public long getCode(int symbol) {
+        return codes[symbol];
+    }
+
+    public int getLength(int symbol) {
+        return lengths[symbol];
+    }
+
+    /**
+     * One past the largest symbol the table can hold.
+     */
+    public int getAlphabetSize() {
+        return lengths.length;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public int[] getLengths() {
+        return lengths.clone();
+    }
+
+    public void encode(CharSequence message, BitWriter out) throws IOException {
+        encode(message, 0, message.length(), out);
+    }
+
+    public void encode(CharSequence message, int from, int to, BitWriter out) throws IOException {
+        for (int i = from; i < to; i++) {
+            char c = message.charAt(i);
+            if (!contains(c)) {
+                throw new IllegalArgumentException("Character not in Huffman tree: " + c);
+            }
+            out.writeBits(codes[c], lengths[c]);
+        }
+    }
+
+    /**
+     * Encodes bytes as the symbols 0-255.
+     */
+    public void encode(byte[] data, int from, int to, BitWriter out) throws IOException {
+        for (int i = from; i < to; i++) {
+            int b = data[i] & 0xFF;
+            if (!contains(b)) {
+                throw new IllegalArgumentException("Byte value has no Huffman code: " + b);
+            }
+            out.writeBits(codes[b], lengths[b]);
+        }
+    }
+
+    /**
+     * Appends the code of the symbol as '0'/'1' characters.
+     */
+    public void appendCode(int symbol, StringBuilder sb) {
+        for (int bit = lengths[symbol] - 1; bit >= 0; bit--) {
+            sb.append(((codes[symbol] >>> bit) & 1) == 0 ? '0' : '1');
+        }
+    }
+
+    public DecodeTable newDecodeTable() {
+        int[] symbols = new int[symbolCount];
+        long[] symbolCodes = new long[symbolCount];
+        int[] symbolLengths = new int[symbolCount];
+        int index = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                symbols[index] = symbol;
+                symbolCodes[index] = codes[symbol];
+                symbolLengths[index] = lengths[symbol];
+                index++;
+            }
+        }
+        return new DecodeTable(symbols, symbolCodes, symbolLengths);
+    }
+}
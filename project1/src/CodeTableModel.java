@@ -0,0 +1,79 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table of the symbols in a {@link CodeTable} with their code lengths and codes, for a
+ * {@link javax.swing.JTable}. Only the list of used symbols is built up front; code text
+ * is formatted when a row is painted, so only the visible rows ever cost anything.
+ */
+class CodeTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Symbol", "Frequency", "Length", "Code"};
+
+    private final transient CodeTable table;
+    private final transient FrequencyCounter frequencies;
+    private final int[] symbols;
+
+    /**
+     * @param frequencies symbol counts to show next to the codes, or null for none
+     */
+    CodeTableModel(CodeTable table, FrequencyCounter frequencies) {
+        this.table = table;
+        this.frequencies = frequencies;
+        symbols = new int[table.getSymbolCount()];
+        int row = 0;
+        for (int symbol = 0; symbol < table.getAlphabetSize(); symbol++) {
+            if (table.contains(symbol)) {
+                symbols[row++] = symbol;
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return symbols.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return frequencies == null ? COLUMNS.length - 1 : COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[columnAt(column)];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (columnAt(column)) {
+            case 1:
+                return Long.class;
+            case 2:
+                return Integer.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int symbol = symbols[row];
+        switch (columnAt(column)) {
+            case 0:
+                return HuffmanTreeModel.symbolText(symbol);
+            case 1:
+                return frequencies.get(symbol);
+            case 2:
+                return table.getLength(symbol);
+            default:
+                StringBuilder code = new StringBuilder(table.getLength(symbol));
+                table.appendCode(symbol, code);
+                return code.toString();
+        }
+    }
+
+    // Skips the frequency column when there are no frequencies
+    private int columnAt(int column) {
+        return frequencies == null && column >= 1 ? column + 1 : column;
+    }
+}
@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one codec phase, such as building a tree or encoding a
+ * message. Recorded by {@link CodecMetrics}; enable it with
+ * {@code -XX:StartFlightRecording} or in JDK Mission Control.
+ */
+@Name("huffman.CodecPhase")
+@Label("Huffman Codec Phase")
+@Category("Huffman")
+@Description("Time and data volume of one frequency count, tree build, code table build, encode, decode, save or load")
+class CodecEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Symbols")
+    long symbols;
+}
@@ -0,0 +1,199 @@
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.EventType;
+
+/**
+ * Process-wide counters and latency histograms for every codec phase, plus a
+ * {@link CodecEvent} per call while a Flight Recorder recording is running. Updates use
+ * {@link LongAdder}s, so concurrent encoders do not contend on shared counters.
+ * <pre>
+ * CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.ENCODE);
+ * ... work ...
+ * timer.stop(bytesIn, bytesOut, symbols);
+ * </pre>
+ */
+class CodecMetrics {
+
+    enum Phase {
+        COUNT, BUILD, CODE_TABLE, ENCODE, DECODE, SAVE, LOAD
+    }
+
+    // Bucket i counts calls that took less than 2^i nanoseconds (and at least 2^(i-1))
+    private static final int BUCKETS = 64;
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(CodecEvent.class);
+
+    private static final Map<Phase, PhaseMetrics> METRICS = new EnumMap<>(Phase.class);
+
+    static {
+        for (Phase phase : Phase.values()) {
+            METRICS.put(phase, new PhaseMetrics());
+        }
+    }
+
+    private CodecMetrics() {
+    }
+
+    static Timer start(Phase phase) {
+        return new Timer(phase);
+    }
+
+    static Snapshot get(Phase phase) {
+        return METRICS.get(phase).snapshot(phase);
+    }
+
+    static void reset() {
+        for (PhaseMetrics metrics : METRICS.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * One line per phase that has been used.
+     */
+    static String report() {
+        StringBuilder report = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            Snapshot snapshot = get(phase);
+            if (snapshot.calls > 0) {
+                report.append(snapshot).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Measures one call of a phase; {@link #stop} records it.
+     */
+    static class Timer {
+        private final Phase phase;
+        // Only created while a recording has the event enabled
+        private final CodecEvent event;
+        private final long start;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            event = EVENT_TYPE.isEnabled() ? new CodecEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            start = System.nanoTime();
+        }
+
+        void stop(long bytesIn, long bytesOut, long symbols) {
+            long nanos = System.nanoTime() - start;
+            METRICS.get(phase).record(nanos, bytesIn, bytesOut, symbols);
+            if (event == null) {
+                return;
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.bytesIn = bytesIn;
+                event.bytesOut = bytesOut;
+                event.symbols = symbols;
+                event.commit();
+            }
+        }
+    }
+
+    private static class PhaseMetrics {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder symbols = new LongAdder();
+        final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        PhaseMetrics() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void record(long elapsed, long in, long out, long count) {
+            calls.increment();
+            nanos.add(elapsed);
+            bytesIn.add(in);
+            bytesOut.add(out);
+            symbols.add(count);
+            histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(elapsed, 0)))].increment();
+        }
+
+        void reset() {
+            calls.reset();
+            nanos.reset();
+            bytesIn.reset();
+            bytesOut.reset();
+            symbols.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+
+        Snapshot snapshot(Phase phase) {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = histogram[i].sum();
+            }
+            return new Snapshot(phase, calls.sum(), nanos.sum(), bytesIn.sum(), bytesOut.sum(), symbols.sum(), buckets);
+        }
+    }
+
+    /**
+     * Totals for one phase at the time {@link #get} was called.
+     */
+    static class Snapshot {
+        final Phase phase;
+        final long calls;
+        final long nanos;
+        final long bytesIn;
+        final long bytesOut;
+        final long symbols;
+        private final long[] histogram;
+
+        Snapshot(Phase phase, long calls, long nanos, long bytesIn, long bytesOut, long symbols, long[] histogram) {
+            this.phase = phase;
+            this.calls = calls;
+            this.nanos = nanos;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.symbols = symbols;
+            this.histogram = histogram;
+        }
+
+        public double getCompressionRatio() {
+            return bytesIn == 0 ? 0 : (double) bytesOut / bytesIn;
+        }
+
+        public double getSymbolsPerSecond() {
+            return nanos == 0 ? 0 : symbols * 1e9 / nanos;
+        }
+
+        /**
+         * Upper bound of the given latency percentile (0-100) in nanoseconds, accurate to
+         * a factor of two.
+         */
+        public long getPercentileNanos(double percentile) {
+            long target = (long) Math.ceil(calls * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) {
+                    return i == 0 ? 0 : 1L << Math.min(i, 62);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-10s calls=%d time=%.3f ms in=%d out=%d ratio=%.3f symbols/s=%.0f p50<=%d ns p99<=%d ns",
+                    phase, calls, nanos / 1e6, bytesIn, bytesOut, getCompressionRatio(), getSymbolsPerSecond(),
+                    getPercentileNanos(50), getPercentileNanos(99));
+        }
+    }
+}
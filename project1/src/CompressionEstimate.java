@@ -0,0 +1,112 @@
+/**
+ * What Huffman coding a histogram would cost, worked out from the counts and code lengths
+ * alone without encoding anything: the exact number of code bits, and the Shannon entropy
+ * of the counts, the lower bound for any code that codes one symbol at a time.
+ * <pre>
+ * CompressionEstimate estimate = CompressionEstimate.of(counts, table);
+ * if (estimate.isCodable() &amp;&amp; estimate.getCodedBytes() + headerBytes &lt; storedBytes) {
+ *     ... encode
+ * }
+ * </pre>
+ */
+class CompressionEstimate {
+    private final long symbols;
+    private final long codedBits;
+    private final double entropyBits;
+
+    private CompressionEstimate(long symbols, long codedBits, double entropyBits) {
+        this.symbols = symbols;
+        this.codedBits = codedBits;
+        this.entropyBits = entropyBits;
+    }
+
+    /**
+     * Estimate for the optimal Huffman code of the counts.
+     */
+    static CompressionEstimate of(FrequencyCounter frequencies) {
+        long[] counts = frequencies.toArray();
+        return of(counts, CodeLengths.huffman(counts));
+    }
+
+    /**
+     * Estimate for coding the counts (indexed by symbol) with the given code lengths.
+     */
+    static CompressionEstimate of(long[] counts, int[] codeLengths) {
+        long symbols = 0;
+        long bits = 0;
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            long count = counts[symbol];
+            if (count == 0) {
+                continue;
+            }
+            int length = symbol < codeLengths.length ? codeLengths[symbol] : 0;
+            if (length == 0) {
+                bits = -1;
+            } else if (bits >= 0) {
+                bits += count * length;
+            }
+            symbols += count;
+        }
+        return new CompressionEstimate(symbols, bits, entropy(counts, symbols));
+    }
+
+    static CompressionEstimate of(long[] counts, CodeTable table) {
+        return of(counts, table.getLengths());
+    }
+
+    private static double entropy(long[] counts, long total) {
+        double bits = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                bits += count * (Math.log((double) total / count) / Math.log(2));
+            }
+        }
+        return bits;
+    }
+
+    public long getSymbolCount() {
+        return symbols;
+    }
+
+    /**
+     * False if some counted symbol has no code, so the input cannot be coded at all.
+     */
+    public boolean isCodable() {
+        return codedBits >= 0;
+    }
+
+    /**
+     * Exact length of the packed codes in bits, or -1 if the input is not codable.
+     */
+    public long getCodedBits() {
+        return codedBits;
+    }
+
+    /**
+     * Length of the packed codes padded to whole bytes, or {@link Long#MAX_VALUE} if the
+     * input is not codable.
+     */
+    public long getCodedBytes() {
+        return codedBits < 0 ? Long.MAX_VALUE : (codedBits + 7) / 8;
+    }
+
+    public double getEntropyBits() {
+        return entropyBits;
+    }
+
+    public double getEntropyBitsPerSymbol() {
+        return symbols == 0 ? 0 : entropyBits / symbols;
+    }
+
+    public double getAverageCodeLength() {
+        return symbols == 0 || codedBits < 0 ? 0 : (double) codedBits / symbols;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d symbols, entropy %.3f bits/symbol, Huffman %s",
+                symbols, getEntropyBitsPerSymbol(),
+                isCodable() ? String.format("%.3f bits/symbol (%d bytes)", getAverageCodeLength(), getCodedBytes())
+                        : "not codable");
+    }
+}
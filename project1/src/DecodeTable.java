@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multi-level lookup table for decoding prefix codes several bits at a time.
+ * <p>
+ * The primary table is indexed by the next {@code PRIMARY_BITS} bits of input. Codes that
+ * fit resolve in a single lookup; longer codes point to a secondary table indexed by the
+ * following bits, and so on. All tables share one flat {@code int[]} so a built table is
+ * immutable and can be reused by any number of decode calls.
+ */
+class DecodeTable {
+    static final int PRIMARY_BITS = 10;
+    static final int SECONDARY_BITS = 10;
+    // Codes no longer than this (e.g. length-limited codes) get a single-level table
+    static final int SINGLE_LOOKUP_BITS = 12;
+
+    // Leaf entries are (symbol << LENGTH_BITS) | bitsConsumed; links are ~((offset << LENGTH_BITS) | width)
+    private static final int LENGTH_BITS = 5;
+    private static final int LENGTH_MASK = (1 << LENGTH_BITS) - 1;
+    private static final int INVALID = Integer.MIN_VALUE;
+
+    private final int[] entries;
+    private final int primaryWidth;
+
+    /**
+     * Builds the table from parallel arrays of symbols, their code bits and code lengths.
+     */
+    DecodeTable(int[] symbols, long[] codes, int[] lengths) {
+        int maxLength = 0;
+        for (int length : lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        primaryWidth = maxLength <= SINGLE_LOOKUP_BITS ? maxLength : PRIMARY_BITS;
+
+        List<Integer> all = new ArrayList<>(symbols.length);
+        for (int i = 0; i < symbols.length; i++) {
+            all.add(i);
+        }
+        IntArray table = new IntArray();
+        build(table, all, 0, primaryWidth, symbols, codes, lengths);
+        entries = table.toArray();
+    }
+
+    /**
+     * Appends a table of the given width for codes whose first {@code consumed} bits have
+     * already been matched, and returns its offset.
+     */
+    private static int build(IntArray table, List<Integer> members, int consumed, int width,
+                             int[] symbols, long[] codes, int[] lengths) {
+        int offset = table.allocate(1 << width);
+        List<List<Integer>> subtables = new ArrayList<>();
+        int[] subtableIndex = new int[1 << width];
+        Arrays.fill(subtableIndex, -1);
+
+        for (int i : members) {
+            int remaining = lengths[i] - consumed;
+            if (remaining <= width) {
+                int prefix = (int) (codes[i] & ((1L << remaining) - 1)) << (width - remaining);
+                int entry = (symbols[i] << LENGTH_BITS) | remaining;
+                for (int j = 0; j < (1 << (width - remaining)); j++) {
+                    table.set(offset + prefix + j, entry);
+                }
+            } else {
+                int prefix = (int) ((codes[i] >>> (remaining - width)) & ((1 << width) - 1));
+                if (subtableIndex[prefix] < 0) {
+                    subtableIndex[prefix] = subtables.size();
+                    subtables.add(new ArrayList<>());
+                }
+                subtables.get(subtableIndex[prefix]).add(i);
+            }
+        }
+
+        for (int prefix = 0; prefix < subtableIndex.length; prefix++) {
+            if (subtableIndex[prefix] < 0) {
+                continue;
+            }
+            List<Integer> sub = subtables.get(subtableIndex[prefix]);
+            int subConsumed = consumed + width;
+            int longest = 0;
+            for (int i : sub) {
+                longest = Math.max(longest, lengths[i] - subConsumed);
+            }
+            int subWidth = Math.min(SECONDARY_BITS, longest);
+            int subOffset = build(table, sub, subConsumed, subWidth, symbols, codes, lengths);
+            table.set(offset + prefix, ~((subOffset << LENGTH_BITS) | subWidth));
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes one symbol from the reader.
+     */
+    public int decodeSymbol(BitReader in) throws IOException {
+        int offset = 0;
+        int width = primaryWidth;
+        while (true) {
+            int entry = entries[offset + in.peekBits(width)];
+            if (entry >= 0) {
+                in.skipBits(entry & LENGTH_MASK);
+                return entry >>> LENGTH_BITS;
+            }
+            if (entry == INVALID) {
+                throw new IOException("Invalid Huffman code in input");
+            }
+            in.skipBits(width);
+            int link = ~entry;
+            offset = link >>> LENGTH_BITS;
+            width = link & LENGTH_MASK;
+        }
+    }
+
+    /**
+     * Growable int array used while the tables are being laid out.
+     */
+    private static class IntArray {
+        private int[] values = new int[64];
+        private int size;
+
+        int allocate(int count) {
+            int offset = size;
+            size += count;
+            if (size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size, values.length * 2));
+            }
+            Arrays.fill(values, offset, size, INVALID);
+            return offset;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -1,19 +1,28 @@
 import java.io.*;
 import java.util.*;
 
+/**
+ * Once built, a tree is never changed, so one instance can be shared by any number of
+ * threads encoding and decoding at the same time.
+ */
 class HuffmanTree implements Serializable {
     private static final long serialVersionUID = 1L; // Added serialVersionUID
 
+    // First byte of compress(): how the rest of the data is stored
+    static final int MODE_HUFFMAN = 0;
+    static final int MODE_STORED_8 = 1;
+    static final int MODE_STORED_16 = 2;
+
     private static class Node implements Serializable {
         private static final long serialVersionUID = 1L; // Added serialVersionUID
 
         char character;
-        int frequency;
+        long frequency;
         int label;
         Node left;
         Node right;
 
-        Node(char character, int frequency) {
+        Node(char character, long frequency) {
             this.character = character;
             this.frequency = frequency;
             this.left = null;
@@ -25,85 +34,128 @@ class HuffmanTree implements Serializable {
         }
     }
 
-    private Node root;
-    private int labelCount;
+    private final Node root;
+    // Built on first use after deserialization; both tables are immutable, so a racing
+    // rebuild only costs time
+    private transient volatile CodeTable codeTable;
+    private transient volatile DecodeTable decodeTable;
 
     HuffmanTree(Map<Character, Integer> frequencyMap) {
-        PriorityQueue<Node> pq = new PriorityQueue<>((a, b) -> a.frequency - b.frequency);
-
-        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-            pq.add(new Node(entry.getKey(), entry.getValue()));
-        }
+        this(FrequencyCounter.fromMap(frequencyMap));
+    }
 
-        while (pq.size() > 1) {
-            Node left = pq.poll();
-            Node right = pq.poll();
-            Node parent = new Node('\0', left.frequency + right.frequency); // Combine frequencies
-            parent.left = left;
-            parent.right = right;
-            pq.add(parent);
-        }
+    HuffmanTree(FrequencyCounter frequencies) {
+        this(buildHuffmanTree(frequencies, Integer.MAX_VALUE));
+    }
 
-        root = pq.poll();
-        labelCount = 1;
-        label(root);
+    /**
+     * Builds a tree whose codes are at most {@code maxCodeLength} bits long. Skewed
+     * frequencies can otherwise produce very long codes; the limited code is still the
+     * shortest possible under that bound.
+     */
+    HuffmanTree(FrequencyCounter frequencies, int maxCodeLength) {
+        this(buildHuffmanTree(frequencies, maxCodeLength));
     }
 
     HuffmanTree() {
-        root = null;
-        labelCount = 1;
+        this((Node) null);
     }
 
-    public void insert(Node newNode) {
-        if (root == null) {
-            root = newNode;
-            return;
-        }
+    // Every constructor and factory ends here, so root is assigned exactly once
+    private HuffmanTree(Node root) {
+        this.root = root;
+        label(root, 1);
+        codeTable = buildCodeTable();
+    }
+
+    /**
+     * Rebuilds a tree from canonical code lengths (indexed by character, zero for unused
+     * characters) without any frequency information.
+     */
+    static HuffmanTree fromCodeLengths(int[] lengths) {
+        return new HuffmanTree(buildCanonical(lengths, new long[lengths.length]));
+    }
 
-        Node current = root;
-        Node parent = null;
-        while (true) {
-            parent = current;
-            if (newNode.label < current.label) {
-                current = current.left;
-                if (current == null) {
-                    parent.left = newNode;
-                    return;
+    /**
+     * Returns the code length of every character, indexed by character.
+     */
+    public int[] getCodeLengths() {
+        return getCodeTable().getLengths();
+    }
+
+    private static Node buildCanonical(int[] lengths, long[] frequencies) {
+        long[] codes = CanonicalCode.assignCodes(lengths);
+        Node root = null;
+        for (int c = 0; c < lengths.length; c++) {
+            if (lengths[c] == 0) {
+                continue;
+            }
+            if (root == null) {
+                root = new Node('\0', 0);
+            }
+            Node current = root;
+            for (int bit = lengths[c] - 1; bit > 0; bit--) {
+                boolean right = ((codes[c] >>> bit) & 1) != 0;
+                Node next = right ? current.right : current.left;
+                if (next == null) {
+                    next = new Node('\0', 0);
+                    if (right) {
+                        current.right = next;
+                    } else {
+                        current.left = next;
+                    }
+                } else if (next.left == null && next.right == null) {
+                    throw new IllegalArgumentException("Code lengths do not form a prefix code");
                 }
+                current = next;
+            }
+            Node leaf = new Node((char) c, frequencies[c]);
+            if (((codes[c] & 1) != 0 ? current.right : current.left) != null) {
+                throw new IllegalArgumentException("Code lengths do not form a prefix code");
+            }
+            if ((codes[c] & 1) != 0) {
+                current.right = leaf;
             } else {
-                current = current.right;
-                if (current == null) {
-                    parent.right = newNode;
-                    return;
-                }
+                current.left = leaf;
             }
         }
+        sumFrequencies(root);
+        return root;
     }
 
-    private int label(Node node) {
+    private static long sumFrequencies(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        if (node.left != null || node.right != null) {
+            node.frequency = sumFrequencies(node.left) + sumFrequencies(node.right);
+        }
+        return node.frequency;
+    }
+
+    // Numbers the nodes in order starting at next; returns the first unused label
+    private static int label(Node node, int next) {
         if (node != null) {
-            int next = label(node.left);
-            node.label = labelCount++;
-            next = label(node.right);
-            return next;
+            next = label(node.left, next);
+            node.label = next++;
+            next = label(node.right, next);
         }
-        return labelCount;
+        return next;
     }
 
     public void save(String fileName) {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.SAVE);
         try (Formatter formatter = new Formatter(fileName)) {
-            System.out.println("Saving Huffman tree to file: " + fileName);
             save(root, formatter);
-            System.out.println("Huffman tree saved successfully.");
         } catch (IOException e) {
             System.err.println("Error saving Huffman tree to file: " + e.getMessage());
             e.printStackTrace();
         }
+        timer.stop(0, new File(fileName).length(), 0);
     }
 
     private void save(Node node, Formatter formatter) {
         if (node != null) {
-            System.out.println("Saving node: " + node.label + " " + node.getCharacterAsString() + " " + node.frequency);
             formatter.format("%d %s %d%n", node.label, node.getCharacterAsString(), node.frequency);
             save(node.left, formatter);
             save(node.right, formatter);
@@ -137,52 +189,360 @@ class HuffmanTree implements Serializable {
         }
     }
 
-    private void generateCodesHelper(Node root, String code, Map<Character, String> codes) {
-        if (root == null) return;
-        if (root.left == null && root.right == null) {
-            codes.put(root.character, code);
-            return;
+    CodeTable getCodeTable() {
+        CodeTable table = codeTable;
+        if (table == null) {
+            table = buildCodeTable();
+            codeTable = table;
         }
-        generateCodesHelper(root.left, code + "0", codes);
-        generateCodesHelper(root.right, code + "1", codes);
+        return table;
+    }
+
+    private CodeTable buildCodeTable() {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.CODE_TABLE);
+        int size = maxCharacter(root) + 1;
+        long[] codes = new long[size];
+        int[] lengths = new int[size];
+        fillCodes(root, 0, 0, codes, lengths);
+        CodeTable table = new CodeTable(codes, lengths);
+        timer.stop(0, 0, table.getSymbolCount());
+        return table;
     }
 
     public Map<Character, String> generateCodes() {
+        CodeTable table = getCodeTable();
         Map<Character, String> codes = new HashMap<>();
-        generateCodesHelper(root, "", codes);
+        for (int c = 0; c < table.getAlphabetSize(); c++) {
+            if (table.contains(c)) {
+                StringBuilder code = new StringBuilder(table.getLength(c));
+                table.appendCode(c, code);
+                codes.put((char) c, code.toString());
+            }
+        }
         return codes;
     }
 
     public String encode(String message) {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.ENCODE);
+        CodeTable table = getCodeTable();
         StringBuilder encoded = new StringBuilder();
-        Map<Character, String> codes = generateCodes();
-        for (char c : message.toCharArray()) {
-            encoded.append(codes.get(c));
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (!table.contains(c)) {
+                throw new IllegalArgumentException("Character not in Huffman tree: " + c);
+            }
+            table.appendCode(c, encoded);
         }
+        timer.stop(message.length(), (encoded.length() + 7) / 8, message.length());
         return encoded.toString();
     }
 
     public String decode(String encodedMessage) {
         StringBuilder decoded = new StringBuilder();
-        Node current = root;
-        for (char c : encodedMessage.toCharArray()) {
-            if (current == null) {
+        if (root == null) {
+            for (int i = 0; i < encodedMessage.length(); i++) {
                 decoded.append('?');
-                continue;
             }
-            current = (c == '0') ? current.left : current.right;
-            if (current != null && current.left == null && current.right == null) {
-                decoded.append(current.character);
-                current = root;
+            return decoded.toString();
+        }
+        // Pack the '0'/'1' text into bytes so the table decoder can take several bits per lookup
+        int bitLength = encodedMessage.length();
+        byte[] packed = new byte[(bitLength + 7) / 8];
+        for (int i = 0; i < bitLength; i++) {
+            if (encodedMessage.charAt(i) != '0') {
+                packed[i >> 3] |= (byte) (0x80 >>> (i & 7));
+            }
+        }
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.DECODE);
+        DecodeTable table = getDecodeTable();
+        BitReader in = new BitReader(new ByteArrayInputStream(packed));
+        while (in.getBitsRead() < bitLength) {
+            int start = (int) in.getBitsRead();
+            char c;
+            try {
+                c = (char) table.decodeSymbol(in);
+            } catch (IOException e) {
+                if (isIncompleteCode(encodedMessage, start)) {
+                    break;
+                }
+                throw new IllegalArgumentException("Invalid Huffman code at bit " + start, e);
+            }
+            if (in.getBitsRead() > bitLength) {
+                break; // trailing bits that do not complete a code
             }
+            decoded.append(c);
         }
+        timer.stop(packed.length, decoded.length(), decoded.length());
         return decoded.toString();
     }
 
+    // True if the bits from start to the end are the beginning of some code
+    private boolean isIncompleteCode(String encodedMessage, int start) {
+        Node node = root;
+        for (int i = start; i < encodedMessage.length(); i++) {
+            node = encodedMessage.charAt(i) == '0' ? node.left : node.right;
+            if (node == null || node.left == null && node.right == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DecodeTable getDecodeTable() {
+        DecodeTable table = decodeTable;
+        if (table == null) {
+            table = getCodeTable().newDecodeTable();
+            decodeTable = table;
+        }
+        return table;
+    }
+
+    private int maxCharacter(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        if (node.left == null && node.right == null) {
+            return node.character;
+        }
+        return Math.max(maxCharacter(node.left), maxCharacter(node.right));
+    }
+
+    private void fillCodes(Node node, long code, int length, long[] codes, int[] lengths) {
+        if (node == null) return;
+        if (node.left == null && node.right == null) {
+            codes[node.character] = code;
+            // A tree that is a single leaf still needs a one-bit code
+            lengths[node.character] = Math.max(length, 1);
+            return;
+        }
+        fillCodes(node.left, code << 1, length + 1, codes, lengths);
+        fillCodes(node.right, (code << 1) | 1, length + 1, codes, lengths);
+    }
+
+    /**
+     * Writes the packed Huffman code of every character of the message to the bit writer.
+     * The string returned by {@link #encode(String)} is the same bit sequence as '0'/'1' text.
+     */
+    public void encode(String message, BitWriter out) throws IOException {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.ENCODE);
+        long start = out.getBitsWritten();
+        getCodeTable().encode(message, out);
+        timer.stop(message.length(), (out.getBitsWritten() - start + 7) / 8, message.length());
+    }
+
+    /**
+     * Reads {@code count} characters from the bit reader.
+     */
+    public String decode(BitReader in, int count) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        if (root == null && count > 0) {
+            throw new IllegalStateException("Huffman tree is empty");
+        }
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.DECODE);
+        long start = in.getBitsRead();
+        DecodeTable table = getDecodeTable();
+        // Not presized beyond a chunk, in case the count is larger than the input
+        StringBuilder decoded = new StringBuilder(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            decoded.append((char) table.decodeSymbol(in));
+        }
+        timer.stop((in.getBitsRead() - start + 7) / 8, count, count);
+        return decoded.toString();
+    }
+
+    /**
+     * Encodes the message into real compressed bytes: the character count followed by the
+     * packed codes, padded to a whole byte.
+     */
+    public byte[] encodeToBytes(String message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length() / 2 + 8);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeInt(message.length());
+            BitWriter out = new BitWriter(data);
+            encode(message, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public String decodeFromBytes(byte[] encoded) {
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            // Every character takes at least one bit
+            int count = CanonicalCode.checkCount(data.readInt(), data.available() * 8L);
+            return decode(new BitReader(data), count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Works out the size of encoding text with the given character counts using this tree,
+     * without encoding it.
+     */
+    public CompressionEstimate estimate(FrequencyCounter frequencies) {
+        return CompressionEstimate.of(frequencies.toArray(), getCodeTable());
+    }
+
+    /**
+     * Compresses the message into a self-describing byte array: a mode byte, then either
+     * the canonical code lengths, the character count and the packed codes, or, if that
+     * would not be smaller (or the message has characters the tree cannot code), the
+     * character count and the characters stored as they are, one byte each if they all fit.
+     * The choice is made from the character counts before anything is encoded. See
+     * {@link #decompress(byte[])}.
+     */
+    public byte[] compress(String message) {
+        long[] counts = FrequencyCounter.of(message).toArray();
+        boolean wide = false;
+        for (int c = 0x100; c < counts.length && !wide; c++) {
+            wide = counts[c] > 0;
+        }
+        long storedBytes = (wide ? 2L : 1L) * message.length();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length() / 2 + 64);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            CompressionEstimate estimate = CompressionEstimate.of(counts, getCodeTable());
+            if (estimate.isCodable()) {
+                data.writeByte(MODE_HUFFMAN);
+                CanonicalCode.writeLengths(data, getCodeLengths());
+                CanonicalCode.writeVarint(data, message.length());
+            }
+            // Whole outputs: mode, header, count and codes against mode, count and characters
+            long storedTotal = 1 + CanonicalCode.varintSize(message.length()) + storedBytes;
+            if (estimate.isCodable() && data.size() + estimate.getCodedBytes() < storedTotal) {
+                BitWriter out = new BitWriter(data);
+                encode(message, out);
+                out.flush();
+            } else {
+                bytes.reset();
+                data.writeByte(wide ? MODE_STORED_16 : MODE_STORED_8);
+                CanonicalCode.writeVarint(data, message.length());
+                if (wide) {
+                    data.writeChars(message);
+                } else {
+                    data.writeBytes(message);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static String decompress(byte[] compressed) {
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(compressed))) {
+            int mode = data.readUnsignedByte();
+            if (mode == MODE_HUFFMAN) {
+                HuffmanTree tree;
+                try {
+                    tree = fromCodeLengths(CanonicalCode.readLengths(data));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid header: " + e.getMessage(), e);
+                }
+                int count = CanonicalCode.checkCount(CanonicalCode.readVarint(data), data.available() * 8L);
+                return tree.decode(new BitReader(data), count);
+            }
+            if (mode != MODE_STORED_8 && mode != MODE_STORED_16) {
+                throw new IOException("Unknown compression mode: " + mode);
+            }
+            int charBytes = mode == MODE_STORED_16 ? 2 : 1;
+            char[] message = new char[CanonicalCode.checkCount(CanonicalCode.readVarint(data), data.available() / charBytes)];
+            for (int i = 0; i < message.length; i++) {
+                message[i] = mode == MODE_STORED_16 ? data.readChar() : (char) data.readUnsignedByte();
+            }
+            return new String(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves only the canonical code lengths, which is all that is needed to rebuild the codes.
+     */
+    public void saveCodeLengths(String fileName) throws IOException {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.SAVE);
+        int[] lengths = getCodeLengths();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            CanonicalCode.writeLengths(out, lengths);
+            out.flush();
+            timer.stop(0, out.size(), lengths.length);
+        }
+    }
+
+    public static HuffmanTree loadCodeLengths(String fileName) throws IOException {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.LOAD);
+        int[] lengths;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            lengths = CanonicalCode.readLengths(in);
+        }
+        timer.stop(new File(fileName).length(), 0, lengths.length);
+        return fromCodeLengths(lengths);
+    }
+
+    /**
+     * Copies the tree into parallel arrays, numbering the nodes in preorder.
+     */
+    public FlatHuffmanTree flatten() {
+        int count = countNodes(root);
+        int[] left = new int[count];
+        int[] right = new int[count];
+        int[] symbol = new int[count];
+        long[] weight = new long[count];
+        if (root != null) {
+            flatten(root, 0, left, right, symbol, weight);
+        }
+        return new FlatHuffmanTree(left, right, symbol, weight);
+    }
+
+    private int countNodes(Node node) {
+        return node == null ? 0 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    // Returns the next free index after the subtree stored at the given index
+    private int flatten(Node node, int index, int[] left, int[] right, int[] symbol, long[] weight) {
+        boolean leaf = node.left == null && node.right == null;
+        symbol[index] = leaf ? node.character : FlatHuffmanTree.NONE;
+        weight[index] = node.frequency;
+        int next = index + 1;
+        left[index] = node.left == null ? FlatHuffmanTree.NONE : next;
+        if (node.left != null) {
+            next = flatten(node.left, next, left, right, symbol, weight);
+        }
+        right[index] = node.right == null ? FlatHuffmanTree.NONE : next;
+        if (node.right != null) {
+            next = flatten(node.right, next, left, right, symbol, weight);
+        }
+        return next;
+    }
+
+    static HuffmanTree fromFlatTree(FlatHuffmanTree flat) {
+        return new HuffmanTree(flat.getNodeCount() > 0 ? toNode(flat, 0) : null);
+    }
+
+    private static Node toNode(FlatHuffmanTree flat, int index) {
+        if (flat.isLeaf(index)) {
+            return new Node((char) flat.getSymbol(index), flat.getWeight(index));
+        }
+        Node node = new Node('\0', flat.getWeight(index));
+        if (flat.getLeft(index) != FlatHuffmanTree.NONE) {
+            node.left = toNode(flat, flat.getLeft(index));
+        }
+        if (flat.getRight(index) != FlatHuffmanTree.NONE) {
+            node.right = toNode(flat, flat.getRight(index));
+        }
+        return node;
+    }
+
     public void serializeTreeToFile(String fileName) {
-        try (FileOutputStream fos = new FileOutputStream(fileName);
-             ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-            oos.writeObject(root);
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.SAVE);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            FlatHuffmanTree flat = flatten();
+            flat.writeTo(out);
+            out.flush();
+            timer.stop(0, out.size(), flat.getNodeCount());
         } catch (IOException e) {
             System.err.println("Error serializing Huffman tree to file: " + e.getMessage());
             e.printStackTrace();
@@ -190,56 +550,64 @@ class HuffmanTree implements Serializable {
     }
 
     public static HuffmanTree deserializeTreeFromFile(String fileName) {
-        try (FileInputStream fis = new FileInputStream(fileName);
-             ObjectInputStream ois = new ObjectInputStream(fis)) {
-            Node root = (Node) ois.readObject();
-            HuffmanTree tree = new HuffmanTree();
-            tree.root = root;
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.LOAD);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            FlatHuffmanTree flat = FlatHuffmanTree.readFrom(in);
+            timer.stop(new File(fileName).length(), 0, flat.getNodeCount());
+            HuffmanTree tree = fromFlatTree(flat);
             System.out.println("Huffman tree deserialized successfully from file: " + fileName);
             return tree;
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.err.println("Error deserializing Huffman tree from file: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
 
-    private Node buildHuffmanTree(Map<Character, Integer> frequencyMap) {
-        PriorityQueue<Node> pq = new PriorityQueue<>((a, b) -> a.frequency - b.frequency);
-
-        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-            pq.add(new Node(entry.getKey(), entry.getValue()));
+    private static Node buildHuffmanTree(FrequencyCounter frequencies, int maxCodeLength) {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.BUILD);
+        long[] counts = frequencies.toArray();
+        if (counts.length > Character.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("Symbols must be chars, found " + (counts.length - 1));
         }
-
-        while (pq.size() > 1) {
-            Node left = pq.poll();
-            Node right = pq.poll();
-            Node parent = new Node('\0', left.frequency + right.frequency); // Combine frequencies
-            parent.left = left;
-            parent.right = right;
-            pq.add(parent);
+        int[] lengths = CodeLengths.huffman(counts);
+        for (int length : lengths) {
+            if (length > maxCodeLength) {
+                lengths = CodeLengths.limited(counts, maxCodeLength);
+                break;
+            }
         }
-
-        return pq.poll();
+        Node root = buildCanonical(lengths, counts);
+        timer.stop(0, 0, frequencies.getSymbolCount());
+        return root;
     }
 
     public HuffmanTree(String fileName) {
-        root = null; // Initialize root to null
+        this(readFrequencyFile(fileName));
+    }
+
+    // Returns null if the file cannot be read
+    private static Node readFrequencyFile(String fileName) {
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            Map<Character, Integer> frequencyMap = new HashMap<>();
+            FrequencyCounter frequencies = new FrequencyCounter();
             String line;
             while ((line = reader.readLine()) != null) {
                 String[] parts = line.split(" ");
+                if (parts[1].equals("none")) {
+                    continue; // internal node, its frequency is the sum of its children
+                }
                 char character = parts[1].charAt(0);
-                int frequency = Integer.parseInt(parts[2]);
-                frequencyMap.put(character, frequency);
+                long frequency = Long.parseLong(parts[2]);
+                frequencies.add(character, frequency);
             }
-            // Construct the Huffman tree using the frequency map
-            this.root = buildHuffmanTree(frequencyMap);
+            // Construct the Huffman tree using the frequencies
+            Node root = buildHuffmanTree(frequencies, Integer.MAX_VALUE);
             System.out.println("Huffman tree loaded successfully from file: " + fileName);
+            return root;
         } catch (IOException e) {
             System.err.println("Error loading Huffman tree from file: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
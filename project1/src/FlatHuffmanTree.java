@@ -0,0 +1,155 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Huffman tree stored in parallel arrays instead of linked nodes. Node 0 is the root;
+ * {@code left}/{@code right} hold child indexes or {@link #NONE}, and leaves carry their
+ * symbol. The arrays are never modified after construction, so one instance can be shared
+ * between threads, and writing it out is just a few hundred integers.
+ */
+class FlatHuffmanTree {
+    static final int NONE = -1;
+    // Symbols are chars, and a full binary tree over n leaves has 2n - 1 nodes
+    static final int MAX_NODES = 2 * (Character.MAX_VALUE + 1) - 1;
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] symbol;
+    private final long[] weight;
+
+    /**
+     * Takes ownership of the arrays; callers must not modify them afterwards.
+     */
+    FlatHuffmanTree(int[] left, int[] right, int[] symbol, long[] weight) {
+        if (left.length != right.length || left.length != symbol.length || left.length != weight.length) {
+            throw new IllegalArgumentException("Node arrays differ in length");
+        }
+        boolean[] hasParent = new boolean[left.length];
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] != NONE && (left[i] <= i || left[i] >= left.length)
+                    || right[i] != NONE && (right[i] <= i || right[i] >= left.length)) {
+                throw new IllegalArgumentException("Invalid child index at node " + i);
+            }
+            if (left[i] == NONE && right[i] == NONE && (symbol[i] < 0 || symbol[i] > Character.MAX_VALUE)) {
+                throw new IllegalArgumentException("Invalid symbol " + symbol[i] + " at node " + i);
+            }
+            for (int child : new int[] {left[i], right[i]}) {
+                if (child != NONE) {
+                    if (hasParent[child]) {
+                        throw new IllegalArgumentException("Node " + child + " has two parents");
+                    }
+                    hasParent[child] = true;
+                }
+            }
+        }
+        this.left = left;
+        this.right = right;
+        this.symbol = symbol;
+        this.weight = weight;
+    }
+
+    public int getNodeCount() {
+        return left.length;
+    }
+
+    public int getLeft(int node) {
+        return left[node];
+    }
+
+    public int getRight(int node) {
+        return right[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return left[node] == NONE && right[node] == NONE;
+    }
+
+    public int getSymbol(int node) {
+        return symbol[node];
+    }
+
+    public long getWeight(int node) {
+        return weight[node];
+    }
+
+    /**
+     * Returns the code length of every symbol, indexed by symbol.
+     */
+    public int[] getCodeLengths() {
+        int maxSymbol = -1;
+        for (int node = 0; node < left.length; node++) {
+            if (isLeaf(node)) {
+                maxSymbol = Math.max(maxSymbol, symbol[node]);
+            }
+        }
+        int[] lengths = new int[maxSymbol + 1];
+        int[] depth = new int[left.length];
+        // Children always have higher indexes than their parent
+        for (int node = 0; node < left.length; node++) {
+            if (left[node] != NONE) {
+                depth[left[node]] = depth[node] + 1;
+            }
+            if (right[node] != NONE) {
+                depth[right[node]] = depth[node] + 1;
+            }
+            if (isLeaf(node)) {
+                lengths[symbol[node]] = Math.max(depth[node], 1);
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Builds the code table for exactly this tree shape (left is 0, right is 1).
+     */
+    public CodeTable toCodeTable() {
+        int[] lengths = getCodeLengths();
+        long[] codes = new long[lengths.length];
+        long[] nodeCode = new long[left.length];
+        for (int node = 0; node < left.length; node++) {
+            if (left[node] != NONE) {
+                nodeCode[left[node]] = nodeCode[node] << 1;
+            }
+            if (right[node] != NONE) {
+                nodeCode[right[node]] = (nodeCode[node] << 1) | 1;
+            }
+            if (isLeaf(node)) {
+                codes[symbol[node]] = nodeCode[node];
+            }
+        }
+        return new CodeTable(codes, lengths);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(left.length);
+        for (int node = 0; node < left.length; node++) {
+            out.writeInt(left[node]);
+            out.writeInt(right[node]);
+            out.writeInt(symbol[node]);
+            out.writeLong(weight[node]);
+        }
+    }
+
+    static FlatHuffmanTree readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_NODES) {
+            throw new IOException("Invalid node count: " + count);
+        }
+        int[] left = new int[count];
+        int[] right = new int[count];
+        int[] symbol = new int[count];
+        long[] weight = new long[count];
+        for (int node = 0; node < count; node++) {
+            left[node] = in.readInt();
+            right[node] = in.readInt();
+            symbol[node] = in.readInt();
+            weight[node] = in.readLong();
+        }
+        try {
+            return new FlatHuffmanTree(left, right, symbol, weight);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt tree: " + e.getMessage(), e);
+        }
+    }
+}
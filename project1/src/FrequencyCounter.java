@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Symbol histogram backed by a primitive {@code long[]}.
+ * <p>
+ * Symbols below {@link #DENSE_LIMIT} (bytes and all Java chars) are counted in a dense
+ * array that starts at 256 entries and grows on demand. Larger symbols, such as
+ * supplementary code points, fall back to a sparse map.
+ * <p>
+ * Large inputs can be counted in parallel: the input is split into chunks that are counted
+ * into separate histograms on a {@link ForkJoinPool} and merged.
+ */
+class FrequencyCounter {
+    static final int DENSE_LIMIT = 0x10000;
+    private static final int BUFFER_SIZE = 8192;
+    // Inputs at least this long are split across the fork/join pool
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private long[] counts = new long[256];
+    private Map<Integer, Long> sparse;
+    private long total;
+
+    static FrequencyCounter of(CharSequence text) {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.COUNT);
+        FrequencyCounter counter;
+        if (text.length() >= PARALLEL_THRESHOLD) {
+            counter = countParallel(text);
+        } else {
+            counter = new FrequencyCounter();
+            counter.count(text);
+        }
+        timer.stop(text.length(), 0, text.length());
+        return counter;
+    }
+
+    static FrequencyCounter countParallel(CharSequence text) {
+        return ForkJoinPool.commonPool().invoke(new CountTask(0, text.length(),
+                (counter, from, to) -> counter.count(text, (int) from, (int) to)));
+    }
+
+    static FrequencyCounter countParallel(byte[] data) {
+        return ForkJoinPool.commonPool().invoke(new CountTask(0, data.length,
+                (counter, from, to) -> counter.count(data, (int) from, (int) (to - from))));
+    }
+
+    /**
+     * Counts the bytes of a file in parallel, each chunk read with positional reads on a
+     * shared channel.
+     */
+    static FrequencyCounter countParallel(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ForkJoinPool.commonPool().invoke(new CountTask(0, channel.size(),
+                    (counter, from, to) -> counter.count(channel, from, to)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void count(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(to - from, 64 * 1024));
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            count(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    /**
+     * Adds all counts of the other histogram to this one.
+     */
+    public void merge(FrequencyCounter other) {
+        if (other.counts.length > counts.length) {
+            grow(other.counts.length - 1);
+        }
+        for (int symbol = 0; symbol < other.counts.length; symbol++) {
+            counts[symbol] += other.counts[symbol];
+        }
+        if (other.sparse != null) {
+            if (sparse == null) {
+                sparse = new HashMap<>();
+            }
+            for (Map.Entry<Integer, Long> entry : other.sparse.entrySet()) {
+                sparse.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+        total += other.total;
+    }
+
+    static FrequencyCounter fromMap(Map<Character, Integer> frequencyMap) {
+        FrequencyCounter counter = new FrequencyCounter();
+        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
+            counter.add(entry.getKey(), entry.getValue());
+        }
+        return counter;
+    }
+
+    public void add(int symbol) {
+        add(symbol, 1);
+    }
+
+    public void add(int symbol, long count) {
+        if (symbol < 0) {
+            throw new IllegalArgumentException("Negative symbol: " + symbol);
+        }
+        if (symbol < counts.length) {
+            counts[symbol] += count;
+        } else if (symbol < DENSE_LIMIT) {
+            grow(symbol);
+            counts[symbol] += count;
+        } else {
+            if (sparse == null) {
+                sparse = new HashMap<>();
+            }
+            sparse.merge(symbol, count, (old, added) -> old + added == 0 ? null : old + added);
+        }
+        total += count;
+    }
+
+    /**
+     * Takes back one occurrence of the symbol, e.g. when text is deleted.
+     */
+    public void remove(int symbol) {
+        if (get(symbol) <= 0) {
+            throw new IllegalArgumentException("Symbol was not counted: " + symbol);
+        }
+        add(symbol, -1);
+    }
+
+    private void grow(int symbol) {
+        int size = counts.length;
+        while (size <= symbol) {
+            size *= 2;
+        }
+        long[] grown = new long[Math.min(size, DENSE_LIMIT)];
+        System.arraycopy(counts, 0, grown, 0, counts.length);
+        counts = grown;
+    }
+
+    /**
+     * Counts every char of the sequence without copying it.
+     */
+    public void count(CharSequence text) {
+        count(text, 0, text.length());
+    }
+
+    public void count(CharSequence text, int from, int to) {
+        long[] local = counts;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= local.length) {
+                grow(c);
+                local = counts;
+            }
+            local[c]++;
+        }
+        total += to - from;
+    }
+
+    /**
+     * Counts Unicode code points, so a surrogate pair counts as one supplementary symbol.
+     */
+    public void countCodePoints(CharSequence text) {
+        long[] local = counts;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                add(Character.toCodePoint(c, text.charAt(i + 1)));
+                i += 2;
+                continue;
+            }
+            if (c >= local.length) {
+                grow(c);
+                local = counts;
+            }
+            local[c]++;
+            total++;
+            i++;
+        }
+    }
+
+    /**
+     * Counts bytes as unsigned symbols 0-255.
+     */
+    public void count(byte[] data, int offset, int length) {
+        long[] local = counts;
+        for (int i = offset; i < offset + length; i++) {
+            local[data[i] & 0xFF]++;
+        }
+        total += length;
+    }
+
+    public void count(byte[] data) {
+        count(data, 0, data.length);
+    }
+
+    /**
+     * Counts the bytes between the buffer's position and limit without moving the position,
+     * so memory-mapped files are counted in place.
+     */
+    public void count(ByteBuffer buffer) {
+        long[] local = counts;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            local[buffer.get(i) & 0xFF]++;
+        }
+        total += buffer.remaining();
+    }
+
+    /**
+     * Counts every byte of the stream; the stream is read to the end but not closed.
+     */
+    public void count(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            count(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Counts every char of the reader; the reader is read to the end but not closed.
+     */
+    public void count(Reader in) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            count(CharBuffer.wrap(buffer), 0, read);
+        }
+    }
+
+    public long get(int symbol) {
+        if (symbol < counts.length) {
+            return counts[symbol];
+        }
+        if (sparse == null) {
+            return 0;
+        }
+        return sparse.getOrDefault(symbol, 0L);
+    }
+
+    /**
+     * Returns the counts as an array indexed by symbol, {@link #getAlphabetSize()} long.
+     */
+    public long[] toArray() {
+        long[] result = new long[getAlphabetSize()];
+        System.arraycopy(counts, 0, result, 0, counts.length);
+        if (sparse != null) {
+            for (Map.Entry<Integer, Long> entry : sparse.entrySet()) {
+                result[entry.getKey()] = entry.getValue();
+            }
+        }
+        return result;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * One past the largest symbol that may have a non-zero count.
+     */
+    public int getAlphabetSize() {
+        int size = counts.length;
+        if (sparse != null) {
+            for (int symbol : sparse.keySet()) {
+                size = Math.max(size, symbol + 1);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of symbols with a non-zero count.
+     */
+    public int getSymbolCount() {
+        int used = sparse == null ? 0 : sparse.size();
+        for (long count : counts) {
+            if (count > 0) {
+                used++;
+            }
+        }
+        return used;
+    }
+
+    private interface ChunkCounter {
+        void count(FrequencyCounter counter, long from, long to) throws IOException;
+    }
+
+    /**
+     * Splits the range [from, to) in halves until it is below the threshold, counts each
+     * piece into its own histogram and merges the results on the way back up.
+     */
+    private static class CountTask extends RecursiveTask<FrequencyCounter> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final transient ChunkCounter chunkCounter;
+
+        CountTask(long from, long to, ChunkCounter chunkCounter) {
+            this.from = from;
+            this.to = to;
+            this.chunkCounter = chunkCounter;
+        }
+
+        @Override
+        protected FrequencyCounter compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                FrequencyCounter counter = new FrequencyCounter();
+                try {
+                    chunkCounter.count(counter, from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return counter;
+            }
+            long middle = from + (to - from) / 2;
+            CountTask right = new CountTask(middle, to, chunkCounter);
+            right.fork();
+            FrequencyCounter counter = new CountTask(from, middle, chunkCounter).compute();
+            counter.merge(right.join());
+            return counter;
+        }
+    }
+}
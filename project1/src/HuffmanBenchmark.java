@@ -0,0 +1,185 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmarks for frequency counting, tree construction, code generation, encoding and
+ * decoding across input sizes and symbol distributions.
+ * <pre>
+ * java HuffmanBenchmark [sizes...]      e.g. java -Xmx4g HuffmanBenchmark 1K 1M 64M 1G
+ * </pre>
+ * Each case is warmed up and then timed over several iterations; the report gives
+ * operations per second, throughput in MB/s of input (not for tree and code construction,
+ * whose cost depends only on the alphabet) and the allocation rate of the benchmark
+ * thread. Inputs of 1 MiB and more are counted in parallel, so the allocation figure for
+ * {@code count} misses the worker threads. {@code enc-str} and {@code dec-str} time the
+ * original {@code encode(String)}/{@code decode(String)} as a baseline, for inputs whose
+ * '0'/'1' encoding is at most 256M characters. Sizes may use the suffixes K, M and G
+ * (powers of 1024); the default is 1K 1M 16M.
+ */
+class HuffmanBenchmark {
+    private static final String[] DISTRIBUTIONS = {"uniform", "skewed", "english", "binary"};
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+    private static final int MIN_ITERATIONS = 3;
+    private static final long MAX_STRING_BITS = 256L << 20;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results reachable so the JIT cannot drop the benchmarked work
+    private static volatile Object sink;
+
+    private HuffmanBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] sizes = args.length > 0 ? args : new String[] {"1K", "1M", "16M"};
+        System.out.println(String.format(Locale.ROOT, "%-8s %-8s %10s %12s %12s %14s",
+                "op", "input", "size", "ops/s", "MB/s", "alloc MB/s"));
+        for (String size : sizes) {
+            for (String distribution : DISTRIBUTIONS) {
+                run(distribution, generate(distribution, parseSize(size), 42));
+            }
+        }
+    }
+
+    private static void run(String distribution, String text) throws IOException {
+        FrequencyCounter frequencies = FrequencyCounter.of(text);
+        HuffmanTree tree = new HuffmanTree(frequencies);
+        int[] lengths = tree.getCodeLengths();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(text.length());
+        BitWriter writer = new BitWriter(encoded);
+        tree.encode(text, writer);
+        writer.flush();
+        byte[] bits = encoded.toByteArray();
+
+        List<Case> cases = new ArrayList<>();
+        cases.add(new Case("count", true, () -> FrequencyCounter.of(text)));
+        cases.add(new Case("build", false, () -> new HuffmanTree(frequencies)));
+        cases.add(new Case("codes", false, () -> CodeTable.fromLengths(lengths)));
+        cases.add(new Case("encode", true, () -> {
+            BitWriter out = new BitWriter(OutputStream.nullOutputStream());
+            tree.encode(text, out);
+            out.flush();
+            return out;
+        }));
+        cases.add(new Case("decode", true, () -> tree.decode(new BitReader(new ByteArrayInputStream(bits)), text.length())));
+        // Baseline: the original '0'/'1' string API, while its output still fits in memory
+        if (writer.getBitsWritten() <= MAX_STRING_BITS) {
+            String encodedText = tree.encode(text);
+            cases.add(new Case("enc-str", true, () -> tree.encode(text)));
+            cases.add(new Case("dec-str", true, () -> tree.decode(encodedText)));
+        }
+        for (Case c : cases) {
+            c.measure(distribution, text.length());
+        }
+    }
+
+    static String generate(String distribution, int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(size);
+        switch (distribution) {
+            case "uniform":
+                while (text.length() < size) {
+                    text.append((char) ('a' + random.nextInt(26)));
+                }
+                break;
+            case "skewed":
+                // Geometric: each symbol is half as likely as the one before
+                while (text.length() < size) {
+                    int symbol = Math.min(Long.numberOfTrailingZeros(random.nextLong() | Long.MIN_VALUE), 25);
+                    text.append((char) ('a' + symbol));
+                }
+                break;
+            case "english":
+                String[] words = {"the", "of", "and", "to", "a", "in", "is", "that", "for", "it", "as",
+                        "was", "with", "be", "by", "on", "not", "he", "this", "are", "or", "his", "from",
+                        "at", "which", "but", "have", "an", "had", "they", "you", "were", "their", "one",
+                        "all", "we", "can", "her", "has", "there", "been", "if", "more", "when", "will",
+                        "would", "who", "so", "no", "Huffman", "compression", "frequency", "tree"};
+                while (text.length() < size) {
+                    // Zipf-like: low indexes are picked far more often
+                    int index = (int) (words.length * Math.pow(random.nextDouble(), 2.5));
+                    text.append(words[index]).append(random.nextInt(12) == 0 ? ". " : " ");
+                }
+                text.setLength(size);
+                break;
+            case "binary":
+                while (text.length() < size) {
+                    text.append((char) random.nextInt(256));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        return text.toString();
+    }
+
+    static int parseSize(String size) {
+        long multiplier = 1;
+        String digits = size.toUpperCase(Locale.ROOT);
+        if (digits.endsWith("K")) {
+            multiplier = 1L << 10;
+        } else if (digits.endsWith("M")) {
+            multiplier = 1L << 20;
+        } else if (digits.endsWith("G")) {
+            multiplier = 1L << 30;
+        }
+        if (multiplier > 1) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        long bytes = Long.parseLong(digits) * multiplier;
+        if (bytes <= 0 || bytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Size out of range: " + size);
+        }
+        return (int) bytes;
+    }
+
+    private interface Operation {
+        Object run() throws IOException;
+    }
+
+    private static class Case {
+        final String name;
+        final boolean perByte;
+        final Operation operation;
+
+        Case(String name, boolean perByte, Operation operation) {
+            this.name = name;
+            this.perByte = perByte;
+            this.operation = operation;
+        }
+
+        void measure(String distribution, int inputSize) throws IOException {
+            long deadline = System.nanoTime() + WARMUP_NANOS;
+            for (int i = 0; i < MIN_ITERATIONS || System.nanoTime() < deadline; i++) {
+                sink = operation.run();
+            }
+
+            long thread = Thread.currentThread().threadId();
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long elapsed;
+            int iterations = 0;
+            do {
+                sink = operation.run();
+                iterations++;
+                elapsed = System.nanoTime() - start;
+            } while (iterations < MIN_ITERATIONS || elapsed < MEASURE_NANOS);
+            long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+            double seconds = elapsed / 1e9;
+            String throughput = perByte
+                    ? String.format(Locale.ROOT, "%.1f", (double) inputSize * iterations / 1e6 / seconds) : "-";
+            System.out.println(String.format(Locale.ROOT, "%-8s %-8s %10d %12.1f %12s %14.1f",
+                    name, distribution, inputSize, iterations / seconds, throughput, allocated / 1e6 / seconds));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command-line entry point for compressing or decompressing many files without the GUI.
+ * <pre>
+ * java HuffmanCli compress   &lt;file or directory&gt; &lt;target directory&gt; [threads]
+ * java HuffmanCli decompress &lt;file or directory&gt; &lt;target directory&gt; [threads]
+ * </pre>
+ * Directories are walked recursively and their layout is kept under the target
+ * directory. Compressed files get the {@value #EXTENSION} extension, which decompression
+ * removes. Files are processed by a pool with one worker per core by default, and a
+ * summary of sizes, ratio and throughput is printed at the end.
+ */
+class HuffmanCli {
+    static final String EXTENSION = ".huf";
+
+    private HuffmanCli() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4
+                || !args[0].equals("compress") && !args[0].equals("decompress")) {
+            usage();
+        }
+        boolean compress = args[0].equals("compress");
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == 4) {
+            try {
+                threads = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                usage();
+            }
+        }
+        try {
+            Summary summary = run(compress, Paths.get(args[1]), Paths.get(args[2]), threads);
+            System.out.println(summary);
+            if (summary.failures > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: HuffmanCli compress|decompress <file or directory> <target directory> [threads]");
+        System.exit(2);
+    }
+
+    static Summary run(boolean compress, Path source, Path targetDirectory, int threads) throws IOException {
+        List<Path> files;
+        Path base;
+        if (Files.isDirectory(source)) {
+            base = source;
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(file -> compress || file.getFileName().toString().endsWith(EXTENSION))
+                        .collect(Collectors.toList());
+            }
+        } else {
+            if (!compress && !source.getFileName().toString().endsWith(EXTENSION)) {
+                throw new IOException("Not a " + EXTENSION + " file: " + source);
+            }
+            base = source.toAbsolutePath().getParent();
+            files = List.of(source.toAbsolutePath());
+        }
+
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<long[]>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Path target = targetFor(compress, base.relativize(file), targetDirectory);
+                results.add(pool.submit(() -> {
+                    if (Files.exists(target) && Files.isSameFile(file, target)) {
+                        throw new IOException("Target is the source file: " + target);
+                    }
+                    Files.createDirectories(target.toAbsolutePath().getParent());
+                    if (compress) {
+                        MappedFileCompressor.compress(file, target);
+                    } else {
+                        HuffmanInputStream.decompressFile(file, target);
+                    }
+                    return new long[] {Files.size(file), Files.size(target)};
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    long[] sizes = results.get(i).get();
+                    summary.files++;
+                    summary.bytesIn += sizes[0];
+                    summary.bytesOut += sizes[1];
+                } catch (ExecutionException e) {
+                    summary.failures++;
+                    System.err.println("Failed: " + files.get(i) + ": " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.nanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    private static Path targetFor(boolean compress, Path relative, Path targetDirectory) {
+        String name = relative.getFileName().toString();
+        if (compress) {
+            name += EXTENSION;
+        } else if (name.endsWith(EXTENSION)) {
+            name = name.substring(0, name.length() - EXTENSION.length());
+        }
+        return targetDirectory.resolve(relative).resolveSibling(name);
+    }
+
+    static class Summary {
+        int files;
+        int failures;
+        long bytesIn;
+        long bytesOut;
+        long nanos;
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            double ratio = bytesIn == 0 ? 0 : (double) bytesOut / bytesIn;
+            return String.format("%d files (%d failed), %d -> %d bytes, ratio %.3f, %.2f s, %.1f MB/s",
+                    files, failures, bytesIn, bytesOut, ratio, seconds,
+                    seconds == 0 ? 0 : bytesIn / 1e6 / seconds);
+        }
+    }
+}
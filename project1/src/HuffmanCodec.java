@@ -0,0 +1,370 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Immutable canonical Huffman codec over a {@link SymbolAlphabet}, with encode and decode
+ * loops specialized per alphabet so no symbol is ever boxed.
+ * <p>
+ * For {@link SymbolAlphabet#CODE_POINT} the symbols are the BMP chars themselves, followed
+ * by one symbol per supplementary code point that occurs, in ascending order. This keeps
+ * the code arrays small even though code points go up to U+10FFFF. For
+ * {@link SymbolAlphabet#TOKEN} the symbols are defined by a {@link TokenAlphabet}, which
+ * is stored in the header.
+ * <p>
+ * Compressed layout: the codec header (alphabet id, supplementary code points or tokens if
+ * any, code lengths), the number of symbols, then the packed codes.
+ */
+class HuffmanCodec {
+    private static final int BMP_SIZE = 0x10000;
+
+    private final SymbolAlphabet alphabet;
+    private final int[] codeLengths;
+    private final int[] supplementary;
+    private final TokenAlphabet tokens;
+    private final CodeTable codeTable;
+    private final DecodeTable decodeTable;
+
+    HuffmanCodec(SymbolAlphabet alphabet, int[] codeLengths, int[] supplementary) {
+        this(alphabet, codeLengths, supplementary, null);
+    }
+
+    HuffmanCodec(TokenAlphabet tokens, int[] codeLengths) {
+        this(SymbolAlphabet.TOKEN, codeLengths, new int[0], tokens);
+    }
+
+    private HuffmanCodec(SymbolAlphabet alphabet, int[] codeLengths, int[] supplementary, TokenAlphabet tokens) {
+        if (alphabet == SymbolAlphabet.TOKEN && tokens == null) {
+            throw new IllegalArgumentException("The token alphabet needs a token list");
+        }
+        if (alphabet == SymbolAlphabet.BYTE && codeLengths.length > 256) {
+            throw new IllegalArgumentException("Byte alphabet has only 256 symbols");
+        }
+        if (alphabet != SymbolAlphabet.CODE_POINT && supplementary.length > 0) {
+            throw new IllegalArgumentException("Only the code point alphabet has supplementary symbols");
+        }
+        this.alphabet = alphabet;
+        this.codeLengths = codeLengths.clone();
+        this.supplementary = supplementary.clone();
+        this.tokens = tokens;
+        this.codeTable = CodeTable.fromLengths(this.codeLengths);
+        this.decodeTable = codeTable.newDecodeTable();
+    }
+
+    static HuffmanCodec forBytes(byte[] data) {
+        FrequencyCounter frequencies;
+        if (data.length >= FrequencyCounter.PARALLEL_THRESHOLD) {
+            frequencies = FrequencyCounter.countParallel(data);
+        } else {
+            frequencies = new FrequencyCounter();
+            frequencies.count(data);
+        }
+        return new HuffmanCodec(SymbolAlphabet.BYTE, CodeLengths.huffman(frequencies.toArray()), new int[0]);
+    }
+
+    static HuffmanCodec forChars(CharSequence text) {
+        return new HuffmanCodec(SymbolAlphabet.CHAR, CodeLengths.huffman(FrequencyCounter.of(text).toArray()), new int[0]);
+    }
+
+    static HuffmanCodec forCodePoints(CharSequence text) {
+        FrequencyCounter frequencies = new FrequencyCounter();
+        frequencies.countCodePoints(text);
+        return forCodePoints(frequencies);
+    }
+
+    static HuffmanCodec forCodePoints(FrequencyCounter frequencies) {
+        long[] counts = frequencies.toArray();
+        int extra = 0;
+        for (int cp = BMP_SIZE; cp < counts.length; cp++) {
+            if (counts[cp] > 0) {
+                extra++;
+            }
+        }
+        int[] supplementary = new int[extra];
+        long[] symbolCounts = new long[Math.min(counts.length, BMP_SIZE) + extra];
+        System.arraycopy(counts, 0, symbolCounts, 0, Math.min(counts.length, BMP_SIZE));
+        int index = 0;
+        for (int cp = BMP_SIZE; cp < counts.length; cp++) {
+            if (counts[cp] > 0) {
+                supplementary[index] = cp;
+                symbolCounts[BMP_SIZE + index] = counts[cp];
+                index++;
+            }
+        }
+        return new HuffmanCodec(SymbolAlphabet.CODE_POINT, CodeLengths.huffman(symbolCounts), supplementary);
+    }
+
+    static HuffmanCodec forTokens(CharSequence text) {
+        return forTokens(text, TokenAlphabet.discover(text, TokenAlphabet.DEFAULT_MAX_TOKENS));
+    }
+
+    static HuffmanCodec forTokens(CharSequence text, TokenAlphabet tokens) {
+        return new HuffmanCodec(tokens, CodeLengths.huffman(tokens.countSymbols(text)));
+    }
+
+    public SymbolAlphabet getAlphabet() {
+        return alphabet;
+    }
+
+    public int[] getCodeLengths() {
+        return codeLengths.clone();
+    }
+
+    /**
+     * Returns the tokens of a {@link SymbolAlphabet#TOKEN} codec, otherwise null.
+     */
+    public TokenAlphabet getTokens() {
+        return tokens;
+    }
+
+    CodeTable getCodeTable() {
+        return codeTable;
+    }
+
+    DecodeTable getDecodeTable() {
+        return decodeTable;
+    }
+
+    public void encode(byte[] data, int offset, int length, BitWriter out) throws IOException {
+        requireAlphabet(SymbolAlphabet.BYTE);
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.ENCODE);
+        long start = out.getBitsWritten();
+        codeTable.encode(data, offset, offset + length, out);
+        timer.stop(length, (out.getBitsWritten() - start + 7) / 8, length);
+    }
+
+    /**
+     * Encodes text as chars, code points or tokens, depending on the alphabet, and returns
+     * the number of symbols written.
+     */
+    public int encode(CharSequence text, BitWriter out) throws IOException {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.ENCODE);
+        long start = out.getBitsWritten();
+        int symbols;
+        if (alphabet == SymbolAlphabet.CHAR) {
+            codeTable.encode(text, out);
+            symbols = text.length();
+        } else if (alphabet == SymbolAlphabet.TOKEN) {
+            symbols = encodeTokens(text, out);
+        } else {
+            symbols = encodeCodePoints(text, out);
+        }
+        timer.stop(text.length(), (out.getBitsWritten() - start + 7) / 8, symbols);
+        return symbols;
+    }
+
+    private int encodeCodePoints(CharSequence text, BitWriter out) throws IOException {
+        requireAlphabet(SymbolAlphabet.CODE_POINT);
+        int symbols = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int symbol = cp;
+            if (cp >= BMP_SIZE) {
+                int index = Arrays.binarySearch(supplementary, cp);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Code point has no Huffman code: U+" + Integer.toHexString(cp));
+                }
+                symbol = BMP_SIZE + index;
+            }
+            if (!codeTable.contains(symbol)) {
+                throw new IllegalArgumentException("Code point has no Huffman code: U+" + Integer.toHexString(cp));
+            }
+            out.writeBits(codeTable.getCode(symbol), codeTable.getLength(symbol));
+            symbols++;
+        }
+        return symbols;
+    }
+
+    private int encodeTokens(CharSequence text, BitWriter out) throws IOException {
+        int symbols = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int symbol = tokens.match(text, i);
+            if (!codeTable.contains(symbol)) {
+                throw new IllegalArgumentException("Character has no Huffman code: " + text.charAt(i));
+            }
+            out.writeBits(codeTable.getCode(symbol), codeTable.getLength(symbol));
+            i += tokens.symbolLength(symbol);
+            symbols++;
+        }
+        return symbols;
+    }
+
+    public void decode(BitReader in, byte[] data, int offset, int length) throws IOException {
+        requireAlphabet(SymbolAlphabet.BYTE);
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.DECODE);
+        long start = in.getBitsRead();
+        for (int i = offset; i < offset + length; i++) {
+            data[i] = (byte) decodeTable.decodeSymbol(in);
+        }
+        timer.stop((in.getBitsRead() - start + 7) / 8, length, length);
+    }
+
+    /**
+     * Decodes {@code count} symbols (chars, code points or tokens) and appends them as text.
+     */
+    public void decode(BitReader in, int count, StringBuilder text) throws IOException {
+        CodecMetrics.Timer timer = CodecMetrics.start(CodecMetrics.Phase.DECODE);
+        long start = in.getBitsRead();
+        int before = text.length();
+        decodeText(in, count, text);
+        timer.stop((in.getBitsRead() - start + 7) / 8, text.length() - before, count);
+    }
+
+    private void decodeText(BitReader in, int count, StringBuilder text) throws IOException {
+        if (alphabet == SymbolAlphabet.CHAR) {
+            for (int i = 0; i < count; i++) {
+                text.append((char) decodeTable.decodeSymbol(in));
+            }
+            return;
+        }
+        if (alphabet == SymbolAlphabet.TOKEN) {
+            for (int i = 0; i < count; i++) {
+                tokens.appendSymbol(decodeTable.decodeSymbol(in), text);
+            }
+            return;
+        }
+        requireAlphabet(SymbolAlphabet.CODE_POINT);
+        for (int i = 0; i < count; i++) {
+            int symbol = decodeTable.decodeSymbol(in);
+            text.appendCodePoint(symbol < BMP_SIZE ? symbol : supplementary[symbol - BMP_SIZE]);
+        }
+    }
+
+    private void requireAlphabet(SymbolAlphabet expected) {
+        if (alphabet != expected) {
+            throw new IllegalStateException("Codec uses the " + alphabet + " alphabet, not " + expected);
+        }
+    }
+
+    public void writeHeader(DataOutput out) throws IOException {
+        out.writeByte(alphabet.getId());
+        if (alphabet == SymbolAlphabet.CODE_POINT) {
+            CanonicalCode.writeVarint(out, supplementary.length);
+            int previous = BMP_SIZE - 1;
+            for (int cp : supplementary) {
+                CanonicalCode.writeVarint(out, cp - previous - 1);
+                previous = cp;
+            }
+        } else if (alphabet == SymbolAlphabet.TOKEN) {
+            tokens.writeTo(out);
+        }
+        CanonicalCode.writeLengths(out, codeLengths);
+    }
+
+    static HuffmanCodec readHeader(DataInput in) throws IOException {
+        SymbolAlphabet alphabet;
+        try {
+            alphabet = SymbolAlphabet.fromId(in.readUnsignedByte());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        int[] supplementary = new int[0];
+        if (alphabet == SymbolAlphabet.CODE_POINT) {
+            int count = CanonicalCode.readVarint(in);
+            if (count < 0 || count > Character.MAX_CODE_POINT + 1 - BMP_SIZE) {
+                throw new IOException("Invalid code point count in header");
+            }
+            supplementary = new int[count];
+            int previous = BMP_SIZE - 1;
+            for (int i = 0; i < supplementary.length; i++) {
+                int gap = CanonicalCode.readVarint(in);
+                if (gap < 0 || gap > Character.MAX_CODE_POINT - previous - 1) {
+                    throw new IOException("Invalid code point in header");
+                }
+                supplementary[i] = previous + 1 + gap;
+                if (supplementary[i] > Character.MAX_CODE_POINT) {
+                    throw new IOException("Invalid code point in header");
+                }
+                previous = supplementary[i];
+            }
+        }
+        TokenAlphabet tokens = alphabet == SymbolAlphabet.TOKEN ? TokenAlphabet.readFrom(in) : null;
+        try {
+            int[] codeLengths = CanonicalCode.readLengths(in, alphabetSize(alphabet, supplementary, tokens));
+            return new HuffmanCodec(alphabet, codeLengths, supplementary, tokens);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid codec header: " + e.getMessage(), e);
+        }
+    }
+
+    private static int alphabetSize(SymbolAlphabet alphabet, int[] supplementary, TokenAlphabet tokens) {
+        switch (alphabet) {
+            case BYTE:
+                return 256;
+            case CODE_POINT:
+                return BMP_SIZE + supplementary.length;
+            case TOKEN:
+                return tokens.getAlphabetSize();
+            default:
+                return BMP_SIZE;
+        }
+    }
+
+    public byte[] compress(byte[] data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out);
+            CanonicalCode.writeVarint(out, data.length);
+            BitWriter bits = new BitWriter(out);
+            encode(data, 0, data.length, bits);
+            bits.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public byte[] compress(CharSequence text) {
+        // The symbol count precedes the codes, so encode into a buffer first
+        ByteArrayOutputStream body = new ByteArrayOutputStream(text.length() / 2 + 16);
+        int count;
+        try {
+            BitWriter bits = new BitWriter(body);
+            count = encode(text, bits);
+            bits.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out);
+            CanonicalCode.writeVarint(out, count);
+            body.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] decompressBytes(byte[] compressed) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed))) {
+            HuffmanCodec codec = readHeader(in);
+            byte[] data = new byte[CanonicalCode.checkCount(CanonicalCode.readVarint(in), in.available() * 8L)];
+            codec.decode(new BitReader(in), data, 0, data.length);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String decompressText(byte[] compressed) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed))) {
+            HuffmanCodec codec = readHeader(in);
+            int count = CanonicalCode.checkCount(CanonicalCode.readVarint(in), in.available() * 8L);
+            StringBuilder text = new StringBuilder(count);
+            codec.decode(new BitReader(in), count, text);
+            return text.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
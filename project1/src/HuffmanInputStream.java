@@ -0,0 +1,105 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Decompresses the block format written by {@link HuffmanOutputStream}, including stored
+ * blocks, holding at most one block of decoded bytes in memory.
+ */
+class HuffmanInputStream extends InputStream {
+    private final BitReader bits;
+    private final DecodeTable table;
+    private final byte[] block = new byte[HuffmanOutputStream.BLOCK_SIZE];
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    HuffmanInputStream(InputStream in) throws IOException {
+        this(in, CanonicalCode.readLengths(new DataInputStream(in), 256));
+    }
+
+    /**
+     * Reads a stream written without a header, coded with the given byte code lengths.
+     */
+    HuffmanInputStream(InputStream in, int[] codeLengths) throws IOException {
+        try {
+            this.table = CodeTable.fromLengths(codeLengths).newDecodeTable();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid code lengths: " + e.getMessage(), e);
+        }
+        this.bits = new BitReader(in);
+    }
+
+    private boolean fillBlock() throws IOException {
+        while (position == limit) {
+            if (finished) {
+                return false;
+            }
+            long header = bits.readBits(32);
+            boolean stored = (header & HuffmanOutputStream.STORED_BLOCK) != 0;
+            int count = (int) (header & ~HuffmanOutputStream.STORED_BLOCK);
+            if (count > block.length) {
+                throw new IOException("Corrupt block length: " + count);
+            }
+            if (count == 0) {
+                finished = true;
+                return false;
+            }
+            if (stored) {
+                bits.readBytes(block, 0, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    block[i] = (byte) table.decodeSymbol(bits);
+                }
+                bits.alignToByte();
+            }
+            position = 0;
+            limit = count;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fillBlock()) {
+            return -1;
+        }
+        int n = Math.min(length, limit - position);
+        System.arraycopy(block, position, data, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        bits.close();
+    }
+
+    static void decompressFile(Path source, Path target) throws IOException {
+        try (HuffmanInputStream in = new HuffmanInputStream(new BufferedInputStream(Files.newInputStream(source)));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            in.transferTo(out);
+        }
+    }
+}
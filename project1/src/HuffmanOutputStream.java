@@ -0,0 +1,161 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compresses bytes written to it with a fixed Huffman code, using bounded memory.
+ * <p>
+ * The stream starts with the canonical code-length header for the byte alphabet. Input is
+ * then buffered and emitted in blocks of at most {@link #BLOCK_SIZE} bytes: a 32-bit byte
+ * count followed by the packed codes, padded to a byte boundary. A block with a count of
+ * zero marks the end of the stream. {@link HuffmanInputStream} reads this format back.
+ * <p>
+ * Before a block is encoded its exact coded size is worked out from its byte counts (see
+ * {@link CompressionEstimate}). If coding would not make it smaller, or the block holds a
+ * byte that has no code, the bytes are copied as they are instead, and the top bit of the
+ * count ({@link #STORED_BLOCK}) is set.
+ */
+class HuffmanOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final long STORED_BLOCK = 1L << 31;
+
+    private final OutputStream out;
+    private final CodeTable table;
+    private final BitWriter bits;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private boolean closed;
+
+    /**
+     * @param codeLengths code length of every byte value (indexed 0-255), as returned by
+     *                    {@link HuffmanTree#getCodeLengths()} for a tree built from byte counts
+     */
+    HuffmanOutputStream(OutputStream out, int[] codeLengths) throws IOException {
+        this(out, codeLengths, true);
+    }
+
+    /**
+     * @param writeHeader false to leave out the code-length header, when the reader already
+     *                    knows the code, e.g. from a {@link TableRegistry}
+     */
+    HuffmanOutputStream(OutputStream out, int[] codeLengths, boolean writeHeader) throws IOException {
+        if (codeLengths.length > 256) {
+            throw new IllegalArgumentException("Code lengths must cover byte values only");
+        }
+        this.out = out;
+        this.table = CodeTable.fromLengths(codeLengths);
+        if (writeHeader) {
+            writeHeader(out, codeLengths);
+        }
+        this.bits = new BitWriter(out);
+    }
+
+    HuffmanOutputStream(OutputStream out, HuffmanTree tree) throws IOException {
+        this(out, tree.getCodeLengths());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == block.length) {
+            writeBlock();
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (blockLength == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(length, block.length - blockLength);
+            System.arraycopy(data, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        writeBlock(bits, table, ByteBuffer.wrap(block, 0, blockLength));
+        blockLength = 0;
+    }
+
+    static void writeHeader(OutputStream out, int[] codeLengths) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        CanonicalCode.writeLengths(header, codeLengths);
+        header.flush();
+    }
+
+    /**
+     * Writes the bytes between the buffer's position and limit (at most {@link #BLOCK_SIZE})
+     * as one block, stored as is if coding does not pay. An empty buffer writes the
+     * end-of-stream marker.
+     */
+    static void writeBlock(BitWriter bits, CodeTable table, ByteBuffer data) throws IOException {
+        if (data.remaining() > BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block too large: " + data.remaining());
+        }
+        long[] counts = new long[256];
+        for (int i = data.position(); i < data.limit(); i++) {
+            counts[data.get(i) & 0xFF]++;
+        }
+        if (data.hasRemaining() && CompressionEstimate.of(counts, table).getCodedBytes() >= data.remaining()) {
+            bits.writeBits(STORED_BLOCK | data.remaining(), 32);
+            bits.writeBytes(data);
+        } else {
+            bits.writeBits(data.remaining(), 32);
+            for (int i = data.position(); i < data.limit(); i++) {
+                int symbol = data.get(i) & 0xFF;
+                bits.writeBits(table.getCode(symbol), table.getLength(symbol));
+            }
+        }
+        bits.flush();
+    }
+
+    /**
+     * Emits the buffered bytes as a block so everything written so far can be decoded.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (blockLength > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            writeBlock(); // empty end-of-stream block
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /**
+     * Compresses a file in two passes: one to count byte frequencies, one to encode.
+     * Memory use does not depend on the file size.
+     */
+    static void compressFile(Path source, Path target) throws IOException {
+        int[] codeLengths = CodeLengths.huffman(FrequencyCounter.countParallel(source).toArray());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source));
+             HuffmanOutputStream out = new HuffmanOutputStream(new BufferedOutputStream(Files.newOutputStream(target)), codeLengths)) {
+            in.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP service for compressing and decompressing without starting a JVM per job.
+ * Every request runs on its own virtual thread, and bodies are streamed in both directions,
+ * so payload size does not affect memory use.
+ * <ul>
+ * <li>{@code POST /compress}: single-pass adaptive coding, see
+ * {@link AdaptiveHuffmanOutputStream}; {@code POST /decompress} reverses it.</li>
+ * <li>{@code POST /compress?table=ID}: codes with a registered byte table in the
+ * {@link HuffmanOutputStream} block format but without the code-length header, since the
+ * table ID names the code; {@code POST /decompress?table=ID} decodes with the same
+ * table.</li>
+ * <li>{@code PUT /tables/ID}: trains a byte table from the body and registers it.</li>
+ * <li>{@code GET /tables/ID}: returns the table's codec header.</li>
+ * </ul>
+ * Tables are shared through a {@link TableRegistry}, so each is read from disk at most
+ * once while it stays in the cache.
+ * <p>
+ * Decompression decodes the first {@value #FIRST_CHUNK} bytes before answering, so a body
+ * that is corrupt from the start gets a 400; a response that short is sent whole. Past
+ * that the response is streamed, and a decoding error drops the connection instead.
+ */
+class HuffmanServer {
+    static final int DEFAULT_PORT = 8642;
+    static final int FIRST_CHUNK = 64 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TableRegistry tables;
+
+    HuffmanServer(InetSocketAddress address, TableRegistry tables) throws IOException {
+        this.tables = tables;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/compress", exchange -> handle(exchange, true));
+        server.createContext("/decompress", exchange -> handle(exchange, false));
+        server.createContext("/tables/", this::handleTable);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path directory = Paths.get(args.length > 1 ? args[1] : "tables");
+        HuffmanServer server = new HuffmanServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), new TableRegistry(directory));
+        server.start();
+        System.out.println("Huffman server listening on port " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, boolean compress) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+            Integer tableId;
+            try {
+                tableId = tableParameter(exchange.getRequestURI().getQuery());
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid table ID");
+                return;
+            }
+            int[] codeLengths = null;
+            if (tableId != null) {
+                HuffmanCodec table;
+                try {
+                    table = tables.get(tableId);
+                } catch (IOException e) {
+                    sendError(exchange, 404, e.getMessage());
+                    return;
+                }
+                if (table.getAlphabet() != SymbolAlphabet.BYTE) {
+                    sendError(exchange, 400, "Table " + tableId + " does not code bytes");
+                    return;
+                }
+                codeLengths = table.getCodeLengths();
+            }
+
+            InputStream body = exchange.getRequestBody();
+            if (compress) {
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                // Length 0 means a chunked response, so nothing has to be buffered
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream response = exchange.getResponseBody();
+                try (body; OutputStream out = codeLengths == null
+                        ? new AdaptiveHuffmanOutputStream(response)
+                        : new HuffmanOutputStream(response, codeLengths, false)) {
+                    body.transferTo(out);
+                } catch (IOException e) {
+                    // Headers are already sent; dropping the connection tells the client it failed
+                    System.err.println("Request failed: " + e.getMessage());
+                }
+                return;
+            }
+
+            InputStream in;
+            byte[] first = new byte[FIRST_CHUNK];
+            int length;
+            try {
+                in = codeLengths == null ? new AdaptiveHuffmanInputStream(body) : new HuffmanInputStream(body, codeLengths);
+                length = in.readNBytes(first, 0, first.length);
+            } catch (IOException e) {
+                body.close();
+                sendError(exchange, 400, "Corrupt input: " + e.getMessage());
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, length < first.length ? length : 0);
+            try (in; OutputStream out = exchange.getResponseBody()) {
+                out.write(first, 0, length);
+                if (length == first.length) {
+                    in.transferTo(out);
+                }
+            } catch (IOException e) {
+                System.err.println("Request failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handleTable(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String name = exchange.getRequestURI().getPath().substring("/tables/".length());
+            int id;
+            try {
+                id = Integer.parseInt(name);
+                if (id < 0) {
+                    throw new NumberFormatException(name);
+                }
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Invalid table ID");
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT": {
+                    HuffmanCodec table;
+                    try (InputStream body = exchange.getRequestBody()) {
+                        table = TableRegistry.trainBytes(body);
+                    }
+                    tables.register(id, table);
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                }
+                case "GET": {
+                    HuffmanCodec table;
+                    try {
+                        table = tables.get(id);
+                    } catch (IOException e) {
+                        sendError(exchange, 404, e.getMessage());
+                        return;
+                    }
+                    ByteArrayOutputStream header = new ByteArrayOutputStream();
+                    table.writeHeader(new DataOutputStream(header));
+                    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                    exchange.sendResponseHeaders(200, header.size());
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        header.writeTo(out);
+                    }
+                    break;
+                }
+                default:
+                    sendError(exchange, 405, "Use GET or PUT");
+            }
+        }
+    }
+
+    private static Integer tableParameter(String query) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("table=")) {
+                int id = Integer.parseInt(parameter.substring("table=".length()));
+                if (id < 0) {
+                    throw new NumberFormatException(parameter);
+                }
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] text = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, text.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(text);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * {@link TreeModel} over a {@link FlatHuffmanTree}, for showing a tree in a
+ * {@link javax.swing.JTree}. Nothing is built up front: a view node is a small wrapper
+ * around a node index, created only when the JTree asks for it, i.e. when its parent is
+ * expanded. The tree never changes, so listeners are never notified.
+ */
+class HuffmanTreeModel implements TreeModel {
+    private final FlatHuffmanTree tree;
+
+    HuffmanTreeModel(FlatHuffmanTree tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public Object getRoot() {
+        return tree.getNodeCount() == 0 ? null : new TreeNode(0);
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        int node = ((TreeNode) parent).index;
+        int left = tree.getLeft(node);
+        int child = index == 0 && left != FlatHuffmanTree.NONE ? left : tree.getRight(node);
+        return new TreeNode(child);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        int node = ((TreeNode) parent).index;
+        return (tree.getLeft(node) != FlatHuffmanTree.NONE ? 1 : 0) + (tree.getRight(node) != FlatHuffmanTree.NONE ? 1 : 0);
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return tree.isLeaf(((TreeNode) node).index);
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null) {
+            return -1;
+        }
+        int node = ((TreeNode) parent).index;
+        int index = ((TreeNode) child).index;
+        int left = tree.getLeft(node);
+        if (index == left) {
+            return 0;
+        }
+        if (index == tree.getRight(node)) {
+            return left != FlatHuffmanTree.NONE ? 1 : 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Does nothing: the tree is read-only, so edits made in a tree view are dropped.
+     */
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+    }
+
+    static String symbolText(int symbol) {
+        if (symbol == ' ') {
+            return "space";
+        }
+        if (Character.isISOControl(symbol) || Character.isWhitespace(symbol) || Character.isSurrogate((char) symbol)) {
+            return String.format("U+%04X", symbol);
+        }
+        return String.valueOf((char) symbol);
+    }
+
+    /**
+     * View of one node; equal wrappers stand for the same node, which is what JTree needs
+     * to keep track of expanded paths.
+     */
+    private class TreeNode {
+        final int index;
+
+        TreeNode(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TreeNode && ((TreeNode) other).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            if (tree.isLeaf(index)) {
+                return symbolText(tree.getSymbol(index)) + " (" + tree.getWeight(index) + ")";
+            }
+            return "(" + tree.getWeight(index) + ")";
+        }
+    }
+}
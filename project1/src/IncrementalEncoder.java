@@ -0,0 +1,312 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the Huffman encoding of a text up to date while the text is being edited.
+ * <p>
+ * Edits are applied with {@link #insert} and {@link #remove}, which adjust the frequency
+ * counts by the inserted or removed characters only. The text is split into segments of
+ * about {@link #SEGMENT_SIZE} characters, each holding its own encoded bits, and an edit
+ * marks only the segments it touches. {@link #update()} then recomputes the code lengths
+ * from the counts; if they are unchanged, only the marked segments are encoded again,
+ * otherwise every segment is, since all codes may have moved. Edits can be batched, e.g.
+ * by a debounce timer, before calling {@code update()}.
+ * <p>
+ * Each {@link Update} also says which range of the encoded bits changed, so a view of the
+ * encoding can be patched with {@link #getEncodedText(long, long)} instead of rebuilt.
+ * Codes are canonical, so the tree for the current encoding is
+ * {@link HuffmanTree#fromCodeLengths}{@code (getCodeLengths())}. Not thread-safe.
+ */
+class IncrementalEncoder {
+    static final int SEGMENT_SIZE = 4096;
+
+    private final StringBuilder text = new StringBuilder();
+    private final FrequencyCounter frequencies = new FrequencyCounter();
+    private final List<Segment> segments = new ArrayList<>();
+    private int[] codeLengths = new int[0];
+    private CodeTable table = CodeTable.fromLengths(codeLengths);
+    private long bitLength;
+
+    public void insert(int offset, CharSequence inserted) {
+        if (offset < 0 || offset > text.length()) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside text of length " + text.length());
+        }
+        if (inserted.length() == 0) {
+            return;
+        }
+        frequencies.count(inserted);
+        text.insert(offset, inserted);
+
+        if (segments.isEmpty()) {
+            segments.add(new Segment(0));
+        }
+        int index = 0;
+        int start = 0;
+        // Text inserted at a boundary goes to the end of the earlier segment
+        while (start + segments.get(index).length < offset) {
+            start += segments.get(index).length;
+            index++;
+        }
+        Segment segment = segments.get(index);
+        segment.length += inserted.length();
+        segment.dirty = true;
+        if (segment.length > 2 * SEGMENT_SIZE) {
+            split(index);
+        }
+    }
+
+    public void remove(int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > text.length()) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + length + " outside text of length " + text.length());
+        }
+        if (length == 0) {
+            return;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            frequencies.remove(text.charAt(i));
+        }
+        text.delete(offset, offset + length);
+
+        int index = 0;
+        int start = 0;
+        while (start + segments.get(index).length <= offset) {
+            start += segments.get(index).length;
+            index++;
+        }
+        int remaining = length;
+        int from = offset - start;
+        while (remaining > 0) {
+            Segment segment = segments.get(index);
+            int removed = Math.min(remaining, segment.length - from);
+            segment.length -= removed;
+            segment.dirty = true;
+            remaining -= removed;
+            from = 0;
+            // Emptied segments stay, marked dirty, until update() has accounted for their bits
+            index++;
+        }
+        // Keep segments from shrinking to a few characters each
+        int last = index - 1;
+        while (last >= 0 && segments.get(last).length == 0) {
+            last--;
+        }
+        if (last >= 0) {
+            mergeIfSmall(last);
+        }
+    }
+
+    private void split(int index) {
+        Segment segment = segments.remove(index);
+        for (int left = segment.length; left > 0; left -= SEGMENT_SIZE) {
+            segments.add(index++, new Segment(Math.min(SEGMENT_SIZE, left)));
+        }
+    }
+
+    private void mergeIfSmall(int index) {
+        Segment segment = segments.get(index);
+        if (segment.length == 0 || segment.length >= SEGMENT_SIZE / 4 || segments.size() == 1) {
+            return;
+        }
+        int neighbour = index + 1 < segments.size() ? index + 1 : index - 1;
+        Segment other = segments.get(neighbour);
+        other.length += segment.length;
+        other.dirty = true;
+        segment.length = 0;
+        segment.dirty = true;
+    }
+
+    /**
+     * Brings the encoding up to date with all edits made since the last update.
+     */
+    public Update update() {
+        int[] lengths = CodeLengths.huffman(frequencies.toArray());
+        boolean rebuilt = !sameLengths(lengths, codeLengths);
+        if (rebuilt) {
+            codeLengths = lengths;
+            table = CodeTable.fromLengths(lengths);
+        }
+        // Clean segments before the first and after the last dirty one keep their bits
+        int first = 0;
+        long prefixBits = 0;
+        while (!rebuilt && first < segments.size() && !segments.get(first).dirty) {
+            prefixBits += segments.get(first++).bitLength;
+        }
+        int last = segments.size() - 1;
+        long suffixBits = 0;
+        while (!rebuilt && last >= first && !segments.get(last).dirty) {
+            suffixBits += segments.get(last--).bitLength;
+        }
+        long removedBits = bitLength - prefixBits - suffixBits;
+
+        int encodedSegments = 0;
+        long encodedChars = 0;
+        int start = 0;
+        try {
+            for (Segment segment : segments) {
+                if (rebuilt || segment.dirty) {
+                    segment.encode(table, text, start);
+                    encodedSegments++;
+                    encodedChars += segment.length;
+                }
+                start += segment.length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.removeIf(segment -> segment.length == 0);
+        bitLength = 0;
+        for (Segment segment : segments) {
+            bitLength += segment.bitLength;
+        }
+        long insertedBits = bitLength - prefixBits - suffixBits;
+        return new Update(rebuilt, encodedSegments, encodedChars, prefixBits, removedBits, insertedBits);
+    }
+
+    // Equal apart from trailing unused symbols
+    private static boolean sameLengths(int[] a, int[] b) {
+        int n = Math.max(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if ((i < a.length ? a[i] : 0) != (i < b.length ? b[i] : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Length of the text, without copying it like {@code getText().length()} would.
+     */
+    public int getLength() {
+        return text.length();
+    }
+
+    public int[] getCodeLengths() {
+        return codeLengths.clone();
+    }
+
+    CodeTable getCodeTable() {
+        return table;
+    }
+
+    /**
+     * Number of segments as of the last {@link #update()}.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Length in bits of the encoding as of the last {@link #update()}.
+     */
+    public long getBitLength() {
+        return bitLength;
+    }
+
+    /**
+     * The encoding as '0'/'1' text, like {@link HuffmanTree#encode(String)}.
+     */
+    public String getEncodedText() {
+        return getEncodedText(0, bitLength);
+    }
+
+    /**
+     * Bits {@code from} (inclusive) to {@code to} (exclusive) of the encoding as '0'/'1'
+     * text, e.g. the range an {@link Update} reports as changed.
+     */
+    public String getEncodedText(long from, long to) {
+        if (from < 0 || to < from || to > bitLength) {
+            throw new IndexOutOfBoundsException("Range " + from + ".." + to + " outside " + bitLength + " bits");
+        }
+        StringBuilder encoded = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, to - from));
+        long start = 0;
+        for (Segment segment : segments) {
+            long end = start + segment.bitLength;
+            if (end > from && start < to) {
+                for (long bit = Math.max(from, start) - start; bit < Math.min(to, end) - start; bit++) {
+                    encoded.append((segment.bits[(int) (bit >>> 3)] & (0x80 >>> (bit & 7))) != 0 ? '1' : '0');
+                }
+            }
+            start = end;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * The encoding in the {@link HuffmanTree#encodeToBytes(String)} format: the character
+     * count followed by the packed codes.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) (getBitLength() / 8) + 8);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeInt(text.length());
+            BitWriter out = new BitWriter(data);
+            for (Segment segment : segments) {
+                long whole = segment.bitLength >>> 3;
+                for (int i = 0; i < whole; i++) {
+                    out.writeBits(segment.bits[i] & 0xFF, 8);
+                }
+                int rest = (int) (segment.bitLength & 7);
+                if (rest > 0) {
+                    out.writeBits((segment.bits[(int) whole] & 0xFF) >>> (8 - rest), rest);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class Segment {
+        int length;
+        boolean dirty = true;
+        byte[] bits = new byte[0];
+        long bitLength;
+
+        Segment(int length) {
+            this.length = length;
+        }
+
+        void encode(CodeTable table, CharSequence text, int start) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + 8);
+            BitWriter out = new BitWriter(bytes);
+            table.encode(text, start, start + length, out);
+            bitLength = out.getBitsWritten();
+            out.flush();
+            bits = bytes.toByteArray();
+            dirty = false;
+        }
+    }
+
+    /**
+     * What one {@link #update()} had to do. The {@code removedBits} bits of the previous
+     * encoding starting at {@code changeStart} were replaced by {@code insertedBits} new
+     * ones; all bits outside that range are unchanged.
+     */
+    static class Update {
+        final boolean treeRebuilt;
+        final int segmentsEncoded;
+        final long charactersEncoded;
+        final long changeStart;
+        final long removedBits;
+        final long insertedBits;
+
+        Update(boolean treeRebuilt, int segmentsEncoded, long charactersEncoded,
+                long changeStart, long removedBits, long insertedBits) {
+            this.treeRebuilt = treeRebuilt;
+            this.segmentsEncoded = segmentsEncoded;
+            this.charactersEncoded = charactersEncoded;
+            this.changeStart = changeStart;
+            this.removedBits = removedBits;
+            this.insertedBits = insertedBits;
+        }
+    }
+}
@@ -1,4 +1,3 @@
-import java.awt.event.ActionEvent;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -39,16 +38,9 @@ class Node implements java.io.Serializable {
 
 
 public class Main {
-    private static frame1 gui;
-    static class Wrapper<T> {
-        T value;
+    static final String TREE_FILE = "C:\\Users\\yasit\\Desktop\\Huffman-Coding-GUI-using-netbeans\\project1\\a\\tree.huf"; // Adjust the file path as needed
 
-        Wrapper(T value) {
-            this.value = value;
-        }
-    }
-
-    private static Wrapper<HuffmanTree> huffmanTreeWrapper = new Wrapper<>(null);
+    private static final ActiveTable<HuffmanTree> activeTree = new ActiveTable<>(null);
     
 
     public static void main(String[] args) {
@@ -57,123 +49,45 @@ public class Main {
             Map<Character, Integer> frequencyMap = readFrequencyMapFromFile(fileName);
             HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
             System.out.println(huffmanTree);
-            huffmanTreeWrapper.value = huffmanTree;
+            activeTree.set(huffmanTree);
         } catch (IOException e) {
             e.printStackTrace();
         }
 
         java.awt.EventQueue.invokeLater(() -> {
-            gui = new frame1(huffmanTreeWrapper);
+            // The frame runs every button action on a background worker
+            frame1 gui = new frame1(activeTree);
             gui.setVisible(true);
-            
-            gui.getLoadHuffmanButton().addActionListener((java.awt.event.ActionEvent evt) -> {
-                loadHuffmanTreeFromFile();
-            });
-            
-            gui.getEncodeButton().addActionListener((ActionEvent evt) -> {
-                String inputMessage = gui.getPlainText();
-                Map<Character, Integer> frequencyMapEncode = getFrequencyMap(inputMessage);
-                if (inputMessage.length() == 0) {
-                    gui.setOutputText("Enter a plain text string to be encoded");
-                } else {
-                    gui.setOutputText("");
-                }
-                HuffmanTree huffmanTreeEncode = new HuffmanTree(frequencyMapEncode);
-                String encodedMessage = huffmanTreeEncode.encode(inputMessage);
-                gui.setEncodedText(encodedMessage);
-                huffmanTreeWrapper.value = huffmanTreeEncode;
-            });
-
-            gui.getFrequencyButton().addActionListener((ActionEvent evt) -> {
-                String inputMessage = gui.getPlainText();
-                final Map<Character, Integer> frequencyMap = getFrequencyMap(inputMessage);
-                gui.setFrequencyText(getFrequencyText(frequencyMap));
-            });
-
-            gui.getDisplayHuffmanTreeButton().addActionListener((ActionEvent evt) -> {
-                if (huffmanTreeWrapper.value != null) {
-                    String huffmanTreeString = huffmanTreeWrapper.value.toString();
-                    gui.setOutputText(huffmanTreeString);
-                } else {
-                    gui.setOutputText("Please enter a message to display the Huffman tree.");
-                }
-            });
-
-            gui.getDecodeButton().addActionListener((ActionEvent evt) -> {
-                if (huffmanTreeWrapper.value != null) {
-                    String encodedMessage = gui.getEncodedText();
-                    if (encodedMessage.length() == 0) {
-                        gui.setOutputText("Please encode a message first.");
-                    } else {
-                        String decodedMessage = huffmanTreeWrapper.value.decode(encodedMessage);
-                        if (isValidBinaryString(encodedMessage)) {
-                            gui.setPlainText(decodedMessage);
-                        } else {
-                            gui.setOutputText("Decode Error: You have entered invalid characters");
-                            gui.setPlainText("");
-                        }
-                    }
-                } else {
-                    gui.setPlainText("Please encode a message first.");
-                }
-            });
-
-            gui.getSaveHuffmanButton().addActionListener((ActionEvent evt) -> {
-                saveHuffmanTreeToFile();
-            });
-
-            gui.getLoadHuffmanButton().addActionListener((ActionEvent evt) -> {
-                loadHuffmanTreeFromFile();
-            });
         });
     }
 
-    public static void saveHuffmanTreeToFile() {
-        String fileName = "C:\\Users\\yasit\\Desktop\\Huffman-Coding-GUI-using-netbeans\\project1\\a\\tree.txt"; // Adjust the file path as needed********
-        if (huffmanTreeWrapper.value != null) {
-            try {
-                huffmanTreeWrapper.value.save(fileName);
-                gui.setOutputText("Huffman tree saved to " + fileName);
-            } catch (Exception e) {
-                gui.setOutputText("Error: Failed to save Huffman tree to file");
-                e.printStackTrace();
-            }
-        } else {
-            gui.setOutputText("Please generate a Huffman tree first.");
-        }
+    static void saveHuffmanTreeToFile(HuffmanTree huffmanTree) throws IOException {
+        huffmanTree.saveCodeLengths(TREE_FILE);
     }
 
-    public static void loadHuffmanTreeFromFile() {
-        String fileName = "C:\\Users\\yasit\\Desktop\\Huffman-Coding-GUI-using-netbeans\\project1\\a\\tree.txt"; // Adjust the file path as needed*
-        try {
-        Map<Character, Integer> frequencyMap = readFrequencyMapFromFile(fileName);
-        HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
-        huffmanTreeWrapper.value = huffmanTree;
-
-        StringBuilder output = new StringBuilder("Huffman tree loaded successfully.\n");
-        output.append("Frequency Map:\n");
-        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-            output.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
-        }
-        gui.setOutputText(output.toString());
-    } catch (IOException e) {
-        gui.setOutputText("Error loading Huffman tree from file: " + fileName + " (" + e.getMessage() + ")");
-        e.printStackTrace();
-    }
+    static HuffmanTree loadHuffmanTreeFromFile() throws IOException {
+        return HuffmanTree.loadCodeLengths(TREE_FILE);
     }
 
-    private static Map<Character, Integer> getFrequencyMap(String message) {
-        Map<Character, Integer> frequencyMap = new HashMap<>();
-        for (char c : message.toCharArray()) {
-            frequencyMap.put(c, frequencyMap.getOrDefault(c, 0) + 1);
+    static String getCodeLengthsText(HuffmanTree huffmanTree) {
+        StringBuilder output = new StringBuilder("Huffman tree loaded successfully.\n");
+        output.append("Code Lengths:\n");
+        int[] codeLengths = huffmanTree.getCodeLengths();
+        for (int c = 0; c < codeLengths.length; c++) {
+            if (codeLengths[c] > 0) {
+                output.append((char) c).append(": ").append(codeLengths[c]).append("\n");
+            }
         }
-        return frequencyMap;
+        return output.toString();
     }
 
-    private static String getFrequencyText(Map<Character, Integer> frequencyMap) {
+    static String getFrequencyText(FrequencyCounter frequencies) {
         StringBuilder frequencyText = new StringBuilder("Character Frequency:\n");
-        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-            frequencyText.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+        for (int c = 0; c < frequencies.getAlphabetSize(); c++) {
+            long frequency = frequencies.get(c);
+            if (frequency > 0) {
+                frequencyText.append((char) c).append(": ").append(frequency).append("\n");
+            }
         }
         return frequencyText.toString();
     }
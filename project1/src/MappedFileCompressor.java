@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File-to-file compression over memory-mapped input. Both the frequency pass and the encode
+ * pass read the source straight from the page cache through {@link MappedByteBuffer}s, and
+ * the output goes to the target channel through a direct buffer, so the input is never
+ * copied onto the heap.
+ * <p>
+ * The output uses the {@link HuffmanOutputStream} format and is read back with
+ * {@link HuffmanInputStream}.
+ */
+class MappedFileCompressor {
+    // Files larger than this are mapped as several windows
+    static final int WINDOW_SIZE = 1 << 30;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private MappedFileCompressor() {
+    }
+
+    static void compress(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<MappedByteBuffer> windows = new ArrayList<>();
+            long size = in.size();
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                windows.add(in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position)));
+            }
+
+            FrequencyCounter frequencies = new FrequencyCounter();
+            for (MappedByteBuffer window : windows) {
+                frequencies.count(window);
+            }
+            int[] codeLengths = CodeLengths.huffman(frequencies.toArray());
+            CodeTable table = CodeTable.fromLengths(codeLengths);
+
+            ChannelOutputStream sink = new ChannelOutputStream(out);
+            HuffmanOutputStream.writeHeader(sink, codeLengths);
+            BitWriter bits = new BitWriter(sink);
+            for (MappedByteBuffer window : windows) {
+                for (int from = 0; from < window.limit(); from += HuffmanOutputStream.BLOCK_SIZE) {
+                    int length = Math.min(HuffmanOutputStream.BLOCK_SIZE, window.limit() - from);
+                    HuffmanOutputStream.writeBlock(bits, table, window.slice(from, length));
+                }
+            }
+            HuffmanOutputStream.writeBlock(bits, table, ByteBuffer.allocate(0));
+            sink.drain();
+        }
+    }
+
+    /**
+     * Collects written bytes in a direct buffer and hands full buffers to the channel, which
+     * saves the temporary direct copy the channel makes for heap buffers.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+        ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(data, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
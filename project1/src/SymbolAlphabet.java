@@ -0,0 +1,32 @@
+/**
+ * The kind of symbols a {@link HuffmanCodec} codes. The id is stored in compressed data.
+ */
+enum SymbolAlphabet {
+    /** Raw bytes, 256 symbols; works for any file and needs no charset decoding. */
+    BYTE(0),
+    /** UTF-16 chars, as used by {@link HuffmanTree}; surrogate pairs are two symbols. */
+    CHAR(1),
+    /** Unicode code points, so surrogate pairs are coded as one symbol. */
+    CODE_POINT(2),
+    /** Chars plus multi-char tokens from a {@link TokenAlphabet}, split by longest match. */
+    TOKEN(3);
+
+    private final int id;
+
+    SymbolAlphabet(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    static SymbolAlphabet fromId(int id) {
+        for (SymbolAlphabet alphabet : values()) {
+            if (alphabet.id == id) {
+                return alphabet;
+            }
+        }
+        throw new IllegalArgumentException("Unknown symbol alphabet: " + id);
+    }
+}
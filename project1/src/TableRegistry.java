@@ -0,0 +1,165 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-trained static code tables stored by numeric ID, so small messages can be coded
+ * without building a tree or sending a header.
+ * <p>
+ * Each table is a {@link HuffmanCodec} header in {@code <id>.table} under the registry
+ * directory. Loaded tables are kept in an LRU cache of bounded size.
+ * <p>
+ * Messages compressed against a table contain the table ID (varint), the symbol count
+ * (varint) and the packed codes, nothing else.
+ */
+class TableRegistry {
+    static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final Path directory;
+    private final Map<Integer, HuffmanCodec> cache;
+
+    TableRegistry(Path directory) {
+        this(directory, DEFAULT_CACHE_SIZE);
+    }
+
+    TableRegistry(Path directory, int cacheSize) {
+        this.directory = directory;
+        this.cache = new LinkedHashMap<Integer, HuffmanCodec>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, HuffmanCodec> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Builds a char table from sample messages. Every char below 256 gets a code even if
+     * the corpus lacks it, so any Latin-1 message can be coded; other chars must occur in
+     * the corpus.
+     */
+    static HuffmanCodec train(Iterable<? extends CharSequence> corpus) {
+        FrequencyCounter frequencies = new FrequencyCounter();
+        for (CharSequence sample : corpus) {
+            frequencies.count(sample);
+        }
+        for (int c = 0; c < 256; c++) {
+            frequencies.add(c);
+        }
+        return new HuffmanCodec(SymbolAlphabet.CHAR, CodeLengths.huffman(frequencies.toArray()), new int[0]);
+    }
+
+    /**
+     * Builds a byte table from a sample stream. Every byte value gets a code, so any data
+     * can be coded with it.
+     */
+    static HuffmanCodec trainBytes(InputStream sample) throws IOException {
+        FrequencyCounter frequencies = new FrequencyCounter();
+        frequencies.count(sample);
+        for (int b = 0; b < 256; b++) {
+            frequencies.add(b);
+        }
+        return new HuffmanCodec(SymbolAlphabet.BYTE, CodeLengths.huffman(frequencies.toArray()), new int[0]);
+    }
+
+    /**
+     * Stores the table under the ID, replacing any table already registered there.
+     */
+    public void register(int id, HuffmanCodec table) throws IOException {
+        Files.createDirectories(directory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableFile(id))))) {
+            table.writeHeader(out);
+        }
+        synchronized (cache) {
+            cache.put(id, table);
+        }
+    }
+
+    public HuffmanCodec get(int id) throws IOException {
+        synchronized (cache) {
+            HuffmanCodec table = cache.get(id);
+            if (table != null) {
+                return table;
+            }
+        }
+        HuffmanCodec table;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(tableFile(id))))) {
+            table = HuffmanCodec.readHeader(in);
+        } catch (NoSuchFileException e) {
+            throw new IOException("No Huffman table with ID " + id, e);
+        }
+        synchronized (cache) {
+            cache.put(id, table);
+        }
+        return table;
+    }
+
+    private Path tableFile(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Table ID must not be negative: " + id);
+        }
+        return directory.resolve(id + ".table");
+    }
+
+    public byte[] compress(int id, CharSequence text) throws IOException {
+        HuffmanCodec table = get(id);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(text.length() / 2 + 8);
+        BitWriter bits = new BitWriter(body);
+        int count = table.encode(text, bits);
+        bits.flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 10);
+        DataOutputStream out = new DataOutputStream(bytes);
+        CanonicalCode.writeVarint(out, id);
+        CanonicalCode.writeVarint(out, count);
+        body.writeTo(out);
+        return bytes.toByteArray();
+    }
+
+    public byte[] compress(int id, byte[] data) throws IOException {
+        HuffmanCodec table = get(id);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2 + 10);
+        DataOutputStream out = new DataOutputStream(bytes);
+        CanonicalCode.writeVarint(out, id);
+        CanonicalCode.writeVarint(out, data.length);
+        BitWriter bits = new BitWriter(out);
+        table.encode(data, 0, data.length, bits);
+        bits.flush();
+        return bytes.toByteArray();
+    }
+
+    public String decompressText(byte[] compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        HuffmanCodec table = get(CanonicalCode.readVarint(in));
+        int count = CanonicalCode.checkCount(CanonicalCode.readVarint(in), in.available() * 8L);
+        StringBuilder text = new StringBuilder(count);
+        table.decode(new BitReader(in), count, text);
+        return text.toString();
+    }
+
+    public byte[] decompressBytes(byte[] compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        HuffmanCodec table = get(CanonicalCode.readVarint(in));
+        byte[] data = new byte[CanonicalCode.checkCount(CanonicalCode.readVarint(in), in.available() * 8L)];
+        table.decode(new BitReader(in), data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Drops all cached tables; they are read from disk again on next use.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
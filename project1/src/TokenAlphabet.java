@@ -0,0 +1,229 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of multi-character tokens, such as frequent words and digrams, that are coded as
+ * single symbols. Text is split by longest match: at each position the longest token that
+ * starts there is taken, or a single char if none does.
+ * <p>
+ * Token {@code i} is symbol {@link #FIRST_TOKEN_SYMBOL}{@code + i}; symbols below that are
+ * plain chars.
+ */
+class TokenAlphabet {
+    static final int FIRST_TOKEN_SYMBOL = 0x10000;
+    static final int DEFAULT_MAX_TOKENS = 1024;
+    // Keeps token symbols within the code point range
+    static final int MAX_TOKENS = Character.MAX_CODE_POINT + 1 - FIRST_TOKEN_SYMBOL;
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    private final String[] tokens;
+    // Trie over the tokens: children are linked through firstChild/nextSibling
+    private final char[] label;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] tokenAt;
+
+    TokenAlphabet(String[] tokens) {
+        this.tokens = tokens.clone();
+        int nodes = 1;
+        for (String token : tokens) {
+            if (token.length() < 2 || token.length() > MAX_TOKEN_LENGTH) {
+                throw new IllegalArgumentException("Token length must be 2 to " + MAX_TOKEN_LENGTH + ": " + token);
+            }
+            nodes += token.length();
+        }
+        label = new char[nodes];
+        firstChild = new int[nodes];
+        nextSibling = new int[nodes];
+        tokenAt = new int[nodes];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        Arrays.fill(tokenAt, -1);
+
+        int size = 1;
+        for (int i = 0; i < tokens.length; i++) {
+            int node = 0;
+            for (int k = 0; k < tokens[i].length(); k++) {
+                char c = tokens[i].charAt(k);
+                int child = child(node, c);
+                if (child < 0) {
+                    child = size++;
+                    label[child] = c;
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                node = child;
+            }
+            if (tokenAt[node] >= 0) {
+                throw new IllegalArgumentException("Duplicate token: " + tokens[i]);
+            }
+            tokenAt[node] = i;
+        }
+    }
+
+    /**
+     * Picks the tokens that save the most symbols in the given text: words (runs of letters
+     * or digits) and char digrams that occur at least twice.
+     */
+    static TokenAlphabet discover(CharSequence text, int maxTokens) {
+        Map<String, long[]> counts = new HashMap<>();
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && wordStart < 0) {
+                wordStart = i;
+            } else if (!wordChar && wordStart >= 0) {
+                int length = i - wordStart;
+                if (length > 2 && length <= MAX_TOKEN_LENGTH) {
+                    counts.computeIfAbsent(text.subSequence(wordStart, i).toString(), k -> new long[1])[0]++;
+                }
+                wordStart = -1;
+            }
+        }
+        long[] digrams = new long[1 << 16];
+        Map<Integer, long[]> wideDigrams = new HashMap<>();
+        for (int i = 0; i + 1 < text.length(); i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            if (first < 0x100 && second < 0x100) {
+                digrams[(first << 8) | second]++;
+            } else {
+                wideDigrams.computeIfAbsent((first << 16) | second, k -> new long[1])[0]++;
+            }
+        }
+        for (int pair = 0; pair < digrams.length; pair++) {
+            if (digrams[pair] > 1) {
+                counts.put(String.valueOf(new char[] {(char) (pair >>> 8), (char) (pair & 0xFF)}), new long[] {digrams[pair]});
+            }
+        }
+        for (Map.Entry<Integer, long[]> entry : wideDigrams.entrySet()) {
+            if (entry.getValue()[0] > 1) {
+                int pair = entry.getKey();
+                counts.put(String.valueOf(new char[] {(char) (pair >>> 16), (char) pair}), entry.getValue());
+            }
+        }
+
+        List<Map.Entry<String, long[]>> candidates = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            if (entry.getValue()[0] > 1) {
+                candidates.add(entry);
+            }
+        }
+        // Each occurrence of a token saves length - 1 symbols
+        candidates.sort((a, b) -> {
+            int order = Long.compare(b.getValue()[0] * (b.getKey().length() - 1),
+                    a.getValue()[0] * (a.getKey().length() - 1));
+            return order != 0 ? order : a.getKey().compareTo(b.getKey());
+        });
+        String[] tokens = new String[Math.min(maxTokens, candidates.size())];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = candidates.get(i).getKey();
+        }
+        return new TokenAlphabet(tokens);
+    }
+
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+            if (label[child] == c) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the symbol of the longest token starting at {@code position}, or the char
+     * there if no token matches. The symbol covers {@link #symbolLength(int)} chars.
+     */
+    public int match(CharSequence text, int position) {
+        int node = 0;
+        int best = text.charAt(position);
+        int end = Math.min(text.length(), position + MAX_TOKEN_LENGTH);
+        for (int i = position; i < end; i++) {
+            node = child(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (tokenAt[node] >= 0) {
+                best = FIRST_TOKEN_SYMBOL + tokenAt[node];
+            }
+        }
+        return best;
+    }
+
+    public int symbolLength(int symbol) {
+        return symbol < FIRST_TOKEN_SYMBOL ? 1 : tokens[symbol - FIRST_TOKEN_SYMBOL].length();
+    }
+
+    public void appendSymbol(int symbol, StringBuilder text) {
+        if (symbol < FIRST_TOKEN_SYMBOL) {
+            text.append((char) symbol);
+        } else {
+            text.append(tokens[symbol - FIRST_TOKEN_SYMBOL]);
+        }
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    public String getToken(int index) {
+        return tokens[index];
+    }
+
+    /**
+     * Number of symbols: all chars plus the tokens.
+     */
+    public int getAlphabetSize() {
+        return FIRST_TOKEN_SYMBOL + tokens.length;
+    }
+
+    /**
+     * Counts the symbols the tokenizer produces for the text, indexed by symbol.
+     */
+    public long[] countSymbols(CharSequence text) {
+        long[] counts = new long[getAlphabetSize()];
+        int i = 0;
+        while (i < text.length()) {
+            int symbol = match(text, i);
+            counts[symbol]++;
+            i += symbolLength(symbol);
+        }
+        return counts;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        CanonicalCode.writeVarint(out, tokens.length);
+        for (String token : tokens) {
+            out.writeByte(token.length());
+            out.writeChars(token);
+        }
+    }
+
+    static TokenAlphabet readFrom(DataInput in) throws IOException {
+        int count = CanonicalCode.readVarint(in);
+        if (count < 0 || count > MAX_TOKENS) {
+            throw new IOException("Invalid token count: " + count);
+        }
+        // Not presized: a corrupt count within the limit still ends at the end of the input
+        List<String> tokens = new ArrayList<>(Math.min(count, DEFAULT_MAX_TOKENS));
+        for (int i = 0; i < count; i++) {
+            char[] chars = new char[in.readUnsignedByte()];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = in.readChar();
+            }
+            tokens.add(new String(chars));
+        }
+        try {
+            return new TokenAlphabet(tokens.toArray(new String[0]));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid token list: " + e.getMessage(), e);
+        }
+    }
+}
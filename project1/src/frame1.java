@@ -4,9 +4,19 @@
  */
 import java.io.IOException;
 import javax.swing.JButton;
+import javax.swing.JTable;
+import javax.swing.JTree;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -24,20 +34,55 @@ import java.io.ObjectInputStream;
  */
 public class frame1 extends javax.swing.JFrame {
 
-     private Main.Wrapper<HuffmanTree> huffmanTreeWrapper;
+     // Text is encoded and shown in chunks of this many characters
+     private static final int CHUNK_SIZE = 64 * 1024;
+
+     private final transient ActiveTable<HuffmanTree> activeTree;
+     private transient SwingWorker<?, ?> currentTask;
+
+     // Live mode re-encodes once typing has paused for this long
+     private static final int LIVE_DELAY_MILLIS = 300;
+
+     // The encoder is only touched by the live worker; the EDT queues edits for it
+     private transient IncrementalEncoder liveEncoder;
+     private final transient List<LiveEdit> pendingEdits = new ArrayList<>();
+     private transient LiveTask liveTask;
+     private final transient Timer liveTimer = new Timer(LIVE_DELAY_MILLIS, event -> refreshLive());
+     private final transient DocumentListener liveListener = new DocumentListener() {
+         @Override
+         public void insertUpdate(DocumentEvent e) {
+             try {
+                 pendingEdits.add(new LiveEdit(e.getOffset(), e.getDocument().getText(e.getOffset(), e.getLength()), 0));
+             } catch (BadLocationException ex) {
+                 throw new IllegalStateException(ex);
+             }
+             liveTimer.restart();
+         }
+
+         @Override
+         public void removeUpdate(DocumentEvent e) {
+             pendingEdits.add(new LiveEdit(e.getOffset(), "", e.getLength()));
+             liveTimer.restart();
+         }
+
+         @Override
+         public void changedUpdate(DocumentEvent e) {
+             // Attribute changes do not affect the text
+         }
+     };
      
 
-    public frame1(Main.Wrapper<HuffmanTree> huffmanTreeWrapper) {
-        this.huffmanTreeWrapper = huffmanTreeWrapper;
+    public frame1(ActiveTable<HuffmanTree> activeTree) {
+        this.activeTree = activeTree;
         initComponents();
+        liveTimer.setRepeats(false);
         
     }
     /**
      * Creates new form frame1
      */
     public frame1() {
-        initComponents();
-        
+        this(new ActiveTable<>(null));
     }
     
     
@@ -68,7 +113,7 @@ public class frame1 extends javax.swing.JFrame {
         Plain_text.setText(text);
     }
     public void setFrequencyText(String text) {
-    output_feild.setText(text);
+    setOutputText(text);
     }
     
    public JButton getDisplayHuffmanTreeButton() {
@@ -76,8 +121,19 @@ public class frame1 extends javax.swing.JFrame {
     }
 
     public void setOutputText(String huffmanTreeString) {
+        showOutputView(output_feild);
         output_feild.setText(huffmanTreeString);
     }
+
+    /**
+     * Shows a component, such as a tree or table view, in the output area in place of the
+     * output text.
+     */
+    private void showOutputView(java.awt.Component view) {
+        if (jScrollPane1.getViewport().getView() != view) {
+            jScrollPane1.setViewportView(view);
+        }
+    }
 public JButton getSaveHuffmanButton() {
     return save_huffman;
 }
@@ -123,6 +179,9 @@ private boolean isValidBinaryString(String str) {
         exit = new javax.swing.JButton();
         encodeButton = new javax.swing.JButton();
         decodeButton = new javax.swing.JButton();
+        liveCheckBox = new javax.swing.JCheckBox();
+        progressBar = new javax.swing.JProgressBar();
+        cancelButton = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -204,6 +263,24 @@ private boolean isValidBinaryString(String str) {
             }
         });
 
+        liveCheckBox.setText("Live");
+        liveCheckBox.setToolTipText("Re-encode the plain text while it is edited");
+        liveCheckBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                liveCheckBoxActionPerformed(evt);
+            }
+        });
+
+        progressBar.setStringPainted(true);
+
+        cancelButton.setText("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cancelButtonActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -243,6 +320,14 @@ private boolean isValidBinaryString(String str) {
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                         .addComponent(exit, javax.swing.GroupLayout.PREFERRED_SIZE, 57, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addGap(36, 36, 36))))
+            .addGroup(layout.createSequentialGroup()
+                .addGap(40, 40, 40)
+                .addComponent(liveCheckBox)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(progressBar, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(cancelButton)
+                .addGap(36, 36, 36))
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -276,7 +361,12 @@ private boolean isValidBinaryString(String str) {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(display_huffman_code)
                     .addComponent(exit, javax.swing.GroupLayout.PREFERRED_SIZE, 32, javax.swing.GroupLayout.PREFERRED_SIZE))
-                .addGap(52, 52, 52))
+                .addGap(18, 18, 18)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.CENTER)
+                    .addComponent(liveCheckBox)
+                    .addComponent(progressBar, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(cancelButton))
+                .addGap(22, 22, 22))
         );
 
         pack();
@@ -284,79 +374,215 @@ private boolean isValidBinaryString(String str) {
 
     private void frequencyActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_frequencyActionPerformed
     String inputText = getPlainText();
-    Map<Character, Integer> frequencyMap = getFrequencyMap(inputText);
-    setFrequencyText(getFrequencyText(frequencyMap));
+    runTask(new CodecTask<String>() {
+        @Override
+        protected String doInBackground() {
+            return Main.getFrequencyText(FrequencyCounter.of(inputText));
+        }
+
+        @Override
+        void succeeded(String frequencyText) {
+            setFrequencyText(frequencyText);
+        }
+    });
     }//GEN-LAST:event_frequencyActionPerformed
 
     private void display_huffman_treeActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_display_huffman_treeActionPerformed
         String inputText = getPlainText();
-        Map<Character, Integer> frequencyMap = getFrequencyMap(inputText);
-        HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
-        String huffmanTreeString = huffmanTree.toString();
-        setOutputText(huffmanTreeString);
+        HuffmanTree current = activeTree.get();
+        if (inputText.isEmpty() && current == null) {
+            setOutputText("Please enter a message to display the Huffman tree.");
+            return;
+        }
+        runTask(new CodecTask<FlatHuffmanTree>() {
+            @Override
+            protected FlatHuffmanTree doInBackground() {
+                // Show the tree of the typed text, or the active tree after the text was encoded
+                HuffmanTree huffmanTree = inputText.isEmpty() ? current : new HuffmanTree(FrequencyCounter.of(inputText));
+                return huffmanTree.flatten();
+            }
+
+            @Override
+            void succeeded(FlatHuffmanTree flatTree) {
+                // The model creates tree nodes only as they are expanded
+                showOutputView(new JTree(new HuffmanTreeModel(flatTree)));
+            }
+        });
     }//GEN-LAST:event_display_huffman_treeActionPerformed
 
     private void display_huffman_codeActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_display_huffman_codeActionPerformed
         String inputMessage = getPlainText();
-        Map<Character, Integer> frequencyMap = getFrequencyMap(inputMessage);
-        HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
-        Map<Character, String> huffmanCodes = huffmanTree.generateCodes();
+        runTask(new CodecTask<CodeTableModel>() {
+            @Override
+            protected CodeTableModel doInBackground() {
+                FrequencyCounter frequencies = FrequencyCounter.of(inputMessage);
+                HuffmanTree huffmanTree = new HuffmanTree(frequencies);
+                return new CodeTableModel(huffmanTree.getCodeTable(), frequencies);
+            }
 
-        StringBuilder huffmanCodesText = new StringBuilder("Huffman Codes:\n");
-        for (Map.Entry<Character, String> entry : huffmanCodes.entrySet()) {
-            huffmanCodesText.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
-        }
-        setOutputText(huffmanCodesText.toString());
+            @Override
+            void succeeded(CodeTableModel codes) {
+                // JTable formats only the rows scrolled into view
+                showOutputView(new JTable(codes));
+            }
+        });
     }//GEN-LAST:event_display_huffman_codeActionPerformed
 
     private void decodeButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_decodeButtonActionPerformed
         
           String encoded = getEncodedText();
-           if (huffmanTreeWrapper.value != null) {
-               if(encoded.isEmpty()){
-                            
-                    output_feild.setText("Please Input Valied binary code.");
-                }
-                HuffmanTree huffmanTree = huffmanTreeWrapper.value; // Use the HuffmanTree instance from huffmanTreeWrapper
-                String decodedText = huffmanTree.decode(encoded);
-                setPlainText(decodedText); 
-   
-                if (isValidBinaryString(encoded)) {
-                    setPlainText(decodedText);
-                } else {
-                    output_feild.setText("Decoding error: Invalid characters found in the decoded message.");
-                    setPlainText(""); // Clear the plain text field
-                }
-           }else {
+          HuffmanTree huffmanTree = activeTree.get(); // one snapshot for the whole decode
+           if (huffmanTree == null) {
                 setPlainText("Please encode a message first.");
                 setOutputText("");
-            }
-            Encoded.setText("");
+                return;
+           }
+           if (encoded.isEmpty()) {
+                setOutputText("Please Input Valied binary code.");
+                return;
+           }
+           runTask(new CodecTask<String>() {
+               @Override
+               protected String doInBackground() {
+                   return isValidBinaryString(encoded) ? huffmanTree.decode(encoded) : null;
+               }
+
+               @Override
+               void succeeded(String decodedText) {
+                   if (decodedText != null) {
+                       setPlainText(decodedText);
+                   } else {
+                       setOutputText("Decoding error: Invalid characters found in the decoded message.");
+                       setPlainText(""); // Clear the plain text field
+                   }
+                   Encoded.setText("");
+               }
+           });
     }//GEN-LAST:event_decodeButtonActionPerformed
 
     private void encodeButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_encodeButtonActionPerformed
         
        String plaintext = getPlainText();
-       HuffmanTree huffmantree = huffmanTreeWrapper.value;
-       String encodedText = huffmantree.encode(plaintext);
-       setEncodedText(encodedText);
-       Plain_text.setText("");
+       if (plaintext.isEmpty()) {
+           setOutputText("Enter a plain text string to be encoded");
+           return;
+       }
+       Encoded.setText("");
+       runTask(new CodecTask<HuffmanTree>() {
+           private CompressionEstimate estimate;
+
+           @Override
+           protected HuffmanTree doInBackground() {
+               FrequencyCounter frequencies = FrequencyCounter.of(plaintext);
+               HuffmanTree huffmantree = new HuffmanTree(frequencies);
+               estimate = huffmantree.estimate(frequencies);
+               setProgress(10);
+
+               for (int from = 0; from < plaintext.length() && !isCancelled(); from += CHUNK_SIZE) {
+                   int to = Math.min(plaintext.length(), from + CHUNK_SIZE);
+                   publish(huffmantree.encode(plaintext.substring(from, to)));
+                   setProgress(10 + (int) (90L * to / plaintext.length()));
+               }
+               return huffmantree;
+           }
+
+           @Override
+           protected void process(List<String> chunks) {
+               if (isCancelled()) {
+                   return;
+               }
+               for (String chunk : chunks) {
+                   appendEncodedText(chunk);
+               }
+           }
+
+           @Override
+           void cancelled() {
+               // The bits shown so far belong to a tree that is never made active
+               Encoded.setText("");
+               super.cancelled();
+           }
+
+           @Override
+           void succeeded(HuffmanTree huffmantree) {
+               activeTree.set(huffmantree);
+               // Same size as encodeToBytes: the count, then the codes padded to a byte
+               setOutputText("Compressed size: " + (4 + estimate.getCodedBytes()) + " bytes ("
+                       + plaintext.length() + " characters)\n" + estimate);
+               Plain_text.setText("");
+           }
+       });
     }//GEN-LAST:event_encodeButtonActionPerformed
 
     private void save_huffmanActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_save_huffmanActionPerformed
         
-    Main.saveHuffmanTreeToFile();
+    HuffmanTree huffmanTree = activeTree.get();
+    if (huffmanTree == null) {
+        setOutputText("Please generate a Huffman tree first.");
+        return;
+    }
+    runTask(new CodecTask<Void>() {
+        @Override
+        protected Void doInBackground() throws IOException {
+            Main.saveHuffmanTreeToFile(huffmanTree);
+            return null;
+        }
+
+        @Override
+        void succeeded(Void result) {
+            setOutputText("Huffman tree saved to " + Main.TREE_FILE);
+        }
+
+        @Override
+        void failed(Throwable error) {
+            setOutputText("Error: Failed to save Huffman tree to file");
+            error.printStackTrace();
+        }
+    });
     }//GEN-LAST:event_save_huffmanActionPerformed
 
     private void load_huffmanActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_load_huffmanActionPerformed
-       
+       runTask(new CodecTask<HuffmanTree>() {
+           private String output;
+
+           @Override
+           protected HuffmanTree doInBackground() throws IOException {
+               HuffmanTree huffmanTree = Main.loadHuffmanTreeFromFile();
+               output = Main.getCodeLengthsText(huffmanTree);
+               return huffmanTree;
+           }
+
+           @Override
+           void succeeded(HuffmanTree huffmanTree) {
+               activeTree.set(huffmanTree);
+               setOutputText(output);
+           }
+
+           @Override
+           void failed(Throwable error) {
+               setOutputText("Error loading Huffman tree from file: " + Main.TREE_FILE + " (" + error.getMessage() + ")");
+               error.printStackTrace();
+           }
+       });
     }//GEN-LAST:event_load_huffmanActionPerformed
 
     private void EncodedActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_EncodedActionPerformed
+        if (liveCheckBox.isSelected()) {
+            return; // the field shows the live encoding, and decoding it would rewrite the text
+        }
         String encodedMessage = Encoded.getText();
-        HuffmanTree huffmanTree = new HuffmanTree(Collections.emptyMap());
-        String decodedMessage = huffmanTree.decode(encodedMessage);
-        Plain_text.setText(decodedMessage);
+        runTask(new CodecTask<String>() {
+            @Override
+            protected String doInBackground() {
+                HuffmanTree huffmanTree = new HuffmanTree(Collections.emptyMap());
+                return huffmanTree.decode(encodedMessage);
+            }
+
+            @Override
+            void succeeded(String decodedMessage) {
+                Plain_text.setText(decodedMessage);
+            }
+        });
     }//GEN-LAST:event_EncodedActionPerformed
 
     private void exitActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exitActionPerformed
@@ -367,65 +593,223 @@ private boolean isValidBinaryString(String str) {
         // TODO add your handling code here:
     }//GEN-LAST:event_Plain_textActionPerformed
 
+    private void cancelButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelButtonActionPerformed
+        if (currentTask != null) {
+            currentTask.cancel(true);
+        }
+    }//GEN-LAST:event_cancelButtonActionPerformed
+
+    private void liveCheckBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_liveCheckBoxActionPerformed
+        Document document = Plain_text.getDocument();
+        boolean live = liveCheckBox.isSelected();
+        // Encode and decode rewrite the text fields, which would trigger live updates
+        encodeButton.setEnabled(!live);
+        decodeButton.setEnabled(!live);
+        Encoded.setEditable(!live);
+        pendingEdits.clear();
+        if (live) {
+            if (currentTask != null) {
+                currentTask.cancel(true);
+            }
+            liveEncoder = new IncrementalEncoder();
+            // Live updates patch the field by range, starting from an empty encoding
+            setEncodedText("");
+            pendingEdits.add(new LiveEdit(0, Plain_text.getText(), 0));
+            document.addDocumentListener(liveListener);
+            refreshLive();
+        } else {
+            document.removeDocumentListener(liveListener);
+            liveTimer.stop();
+            liveEncoder = null;
+        }
+    }//GEN-LAST:event_liveCheckBoxActionPerformed
+
     /**
-     * @param args the command line arguments
+     * Hands the edits made since the last refresh to a background {@link LiveTask}. Only
+     * one runs at a time; edits made meanwhile are picked up when it finishes.
      */
-       public static void main(String args[]) {
-        java.awt.EventQueue.invokeLater(() -> {
-            frame1 gui = new frame1();
-            gui.setVisible(true);
+    private void refreshLive() {
+        if (liveEncoder == null || liveTask != null || pendingEdits.isEmpty()) {
+            return;
+        }
+        liveTask = new LiveTask(liveEncoder, new ArrayList<>(pendingEdits));
+        pendingEdits.clear();
+        liveTask.execute();
+    }
 
-            gui.getEncodeButton().addActionListener((java.awt.event.ActionEvent evt) -> {
-                String inputMessage = gui.getPlainText();
-                Map<Character, Integer> frequencyMap = getFrequencyMap(inputMessage);
-                HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
-                String encodedMessage = huffmanTree.encode(inputMessage);
-                gui.setEncodedText(encodedMessage);
-            });
-
-            gui.getFrequencyButton().addActionListener((java.awt.event.ActionEvent evt) -> {
-                String inputMessage = gui.getPlainText();
-                Map<Character, Integer> frequencyMap = getFrequencyMap(inputMessage);
-                gui.setFrequencyText(getFrequencyText(frequencyMap));
-            });
-
-            gui.getDisplayHuffmanTreeButton().addActionListener((java.awt.event.ActionEvent evt) -> {
-                String inputMessage = gui.getPlainText();
-                Map<Character, Integer> frequencyMap = getFrequencyMap(inputMessage);
-                HuffmanTree huffmanTree = new HuffmanTree(frequencyMap);
-                String huffmanTreeString = huffmanTree.toString();
-                gui.setOutputText(huffmanTreeString);
-            });
-
-            gui.getDecodeButton().addActionListener((java.awt.event.ActionEvent evt) -> {
-                String encodedMessage = gui.getEncodedText();
-                HuffmanTree huffmanTree = new HuffmanTree(Collections.emptyMap());
-                String decodedMessage = huffmanTree.decode(encodedMessage);
-                gui.setPlainText(decodedMessage);
-            });
+    private static class LiveEdit {
+        final int offset;
+        final String inserted;
+        final int removed;
+
+        LiveEdit(int offset, String inserted, int removed) {
+            this.offset = offset;
+            this.inserted = inserted;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Applies queued edits to the live encoder and re-encodes off the Event Dispatch
+     * Thread. Only the range of bits the update changed is replaced in the Encoded field,
+     * and the tree is only replaced when the code lengths have changed.
+     */
+    private class LiveTask extends SwingWorker<String, Void> {
+        private final IncrementalEncoder encoder;
+        private final List<LiveEdit> edits;
+        private IncrementalEncoder.Update update;
+        private String encoded;
+        private int[] codeLengths;
+
+        LiveTask(IncrementalEncoder encoder, List<LiveEdit> edits) {
+            this.encoder = encoder;
+            this.edits = edits;
+        }
+
+        @Override
+        protected String doInBackground() {
+            for (LiveEdit edit : edits) {
+                if (edit.removed > 0) {
+                    encoder.remove(edit.offset, edit.removed);
+                } else {
+                    encoder.insert(edit.offset, edit.inserted);
+                }
+            }
+            update = encoder.update();
+            encoded = encoder.getEncodedText(update.changeStart, update.changeStart + update.insertedBits);
+            codeLengths = update.treeRebuilt ? encoder.getCodeLengths() : null;
+            int length = encoder.getLength();
+            if (length == 0) {
+                return "Live: no text.";
+            }
+            return String.format("Live: %d characters -> %d bits%n"
+                    + "Re-encoded %d of %d segments (%d characters)%s",
+                    length, encoder.getBitLength(),
+                    update.segmentsEncoded, encoder.getSegmentCount(), update.charactersEncoded,
+                    update.treeRebuilt ? ", tree rebuilt" : "");
+        }
+
+        @Override
+        protected void done() {
+            liveTask = null;
+            // Nothing to show if live mode was switched off (or restarted) meanwhile
+            if (encoder == liveEncoder) {
+                try {
+                    String report = get();
+                    Document document = Encoded.getDocument();
+                    document.remove((int) update.changeStart, (int) update.removedBits);
+                    document.insertString((int) update.changeStart, encoded, null);
+                    if (codeLengths != null && update.insertedBits > 0) {
+                        activeTree.set(HuffmanTree.fromCodeLengths(codeLengths));
+                    }
+                    setOutputText(report);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    setOutputText("Error: " + e.getCause().getMessage());
+                    // The field no longer matches the encoder, so later ranges would not apply
+                    liveCheckBox.setSelected(false);
+                    liveCheckBoxActionPerformed(null);
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            refreshLive();
+        }
+    }
+
+    /**
+     * Runs the task off the Event Dispatch Thread, cancelling any task still running. The
+     * progress bar follows the task and the Cancel button stops it.
+     */
+    private void runTask(SwingWorker<?, ?> task) {
+        // Replace first, so the cancelled task can tell it was superseded
+        SwingWorker<?, ?> previous = currentTask;
+        currentTask = task;
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        progressBar.setValue(0);
+        progressBar.setIndeterminate(true);
+        cancelButton.setEnabled(true);
+        task.addPropertyChangeListener(event -> {
+            if (task != currentTask) {
+                return;
+            }
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) event.getNewValue());
+            } else if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(task.isCancelled() ? 0 : 100);
+                cancelButton.setEnabled(false);
+                currentTask = null;
+            }
         });
+        task.execute();
     }
 
-    private static Map<Character, Integer> getFrequencyMap(String message) {
-        Map<Character, Integer> frequencyMap = new HashMap<>();
-        for (char c : message.toCharArray()) {
-            frequencyMap.put(c, frequencyMap.getOrDefault(c, 0) + 1);
+    private void appendEncodedText(String chunk) {
+        Document document = Encoded.getDocument();
+        try {
+            document.insertString(document.getLength(), chunk, null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
         }
-        return frequencyMap;
     }
 
-    private static String getFrequencyText(Map<Character, Integer> frequencyMap) {
-        StringBuilder frequencyText = new StringBuilder("Character Frequency:\n");
-        for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-            frequencyText.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+    /**
+     * Background work whose result is shown on the Event Dispatch Thread once it is done.
+     * Cancelled tasks show nothing but a note in the output field.
+     */
+    private abstract class CodecTask<T> extends SwingWorker<T, String> {
+
+        abstract void succeeded(T result);
+
+        void failed(Throwable error) {
+            setOutputText("Error: " + error.getMessage());
+        }
+
+        /**
+         * Called instead of {@link #succeeded} when the task was cancelled. A task that was
+         * replaced by a newer one leaves the output to that task.
+         */
+        void cancelled() {
+            if (this == currentTask) {
+                setOutputText("Cancelled.");
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                cancelled();
+                return;
+            }
+            try {
+                succeeded(get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                failed(e.getCause());
+            }
         }
-        return frequencyText.toString();
     }
 
+    /**
+     * @param args the command line arguments
+     */
+       public static void main(String args[]) {
+        java.awt.EventQueue.invokeLater(() -> {
+            frame1 gui = new frame1();
+            gui.setVisible(true);
+        });
+    }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JTextField Encoded;
     private javax.swing.JTextField Plain_text;
+    private javax.swing.JButton cancelButton;
     private javax.swing.JButton decodeButton;
     private javax.swing.JButton display_huffman_code;
     private javax.swing.JButton display_huffman_tree;
@@ -436,8 +820,10 @@ private boolean isValidBinaryString(String str) {
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
     private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JCheckBox liveCheckBox;
     private javax.swing.JButton load_huffman;
     private javax.swing.JTextArea output_feild;
+    private javax.swing.JProgressBar progressBar;
     private javax.swing.JButton save_huffman;
     // End of variables declaration//GEN-END:variables
 
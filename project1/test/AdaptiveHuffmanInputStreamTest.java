@@ -0,0 +1,41 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class AdaptiveHuffmanInputStreamTest {
+
+    @Test(timeout = 10_000)
+    public void bulkReadReturnsFlushedBytesWhileWriterWaits() throws Exception {
+        byte[] message = "flushed but not closed".getBytes(StandardCharsets.US_ASCII);
+        PipedInputStream pipe = new PipedInputStream();
+        PipedOutputStream sink = new PipedOutputStream(pipe);
+        CountDownLatch received = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try (AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(sink)) {
+                out.write(message);
+                out.flush();
+                // Keep the stream open until the reader has the flushed bytes
+                received.await();
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+
+        AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(pipe);
+        byte[] buffer = new byte[1024];
+        int n = in.read(buffer, 0, buffer.length);
+        received.countDown();
+
+        assertArrayEquals(message, Arrays.copyOf(buffer, n));
+        assertEquals(-1, in.read(buffer, 0, buffer.length));
+        writer.join();
+    }
+}